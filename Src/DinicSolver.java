@@ -0,0 +1,121 @@
+import java.util.*;
+
+/**
+ * Dinic's algorithm.
+ *
+ * Each phase labels the vertices with their BFS distance from the source
+ * in the residual graph and then augments along shortest paths only, until
+ * the level graph holds no more source-sink path (a blocking flow).  The
+ * search for paths is an iterative DFS that keeps a current arc per vertex,
+ * so every arc is passed over at most once per phase.  There are at most
+ * n phases; on unit-capacity bipartite graphs O(sqrt(n)) phases suffice.
+ */
+public class DinicSolver implements MaxFlowSolver {
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        ResidualGraph r = graph;
+        Arrays.fill(r.flow, 0.0);
+
+        int[] level = r.height;     // BFS distance from s, -1 if unreached or dead
+        int[] queue = new int[r.n];
+        int[] path = new int[r.n];  // arcs of the path from s to the current vertex
+        double value = 0.0;
+
+        while (buildLevels(r, level, queue)) {
+            System.arraycopy(r.first, 0, r.current, 0, r.n);
+
+            int top = 0;
+            int v = source;
+            while (true) {
+                if (v == sink) {
+                    // Augment by the bottleneck and back up to the first saturated arc
+                    double delta = Double.POSITIVE_INFINITY;
+                    for (int i = 0; i < top; i++) {
+                        delta = Math.min(delta, r.residual(path[i]));
+                    }
+                    int back = top;
+                    for (int i = 0; i < top; i++) {
+                        int a = path[i];
+                        if (r.residual(a) == delta) {
+                            // Exactly cap, so the arc is seen as full below
+                            r.saturate(a);
+                        }
+                        else {
+                            r.flow[a] += delta;
+                            r.flow[r.rev[a]] -= delta;
+                        }
+                        if (back == top && r.residual(a) <= 0.0) {
+                            back = i;
+                        }
+                    }
+                    value += delta;
+                    top = back;
+                    v = (top == 0) ? source : r.head[path[top - 1]];
+                    continue;
+                }
+
+                // Advance along the current arc if it leads one level up
+                int a = r.current[v];
+                int end = r.first[v + 1];
+                while (a < end && !(r.residual(a) > 0.0 && level[r.head[a]] == level[v] + 1)) {
+                    a++;
+                }
+                r.current[v] = a;
+
+                if (a < end) {
+                    path[top++] = a;
+                    v = r.head[a];
+                }
+                else {
+                    // Retreat: no path to t leaves v in this phase
+                    level[v] = -1;
+                    if (top == 0) {
+                        break;
+                    }
+                    top--;
+                    v = r.head[r.rev[path[top]]];
+                    r.current[v]++;
+                }
+            }
+        }
+
+        Arrays.fill(r.height, 0);
+        setExcess(r, value);
+        return new MaxFlowResult(r, value);
+    }
+
+    /**
+     * Label every vertex with its distance from the source over residual
+     * arcs.
+     * @returns  true if the sink is reachable
+     */
+    private static boolean buildLevels(ResidualGraph r, int[] level, int[] queue) {
+        Arrays.fill(level, -1);
+        int qHead = 0, qTail = 0;
+        level[r.source] = 0;
+        queue[qTail++] = r.source;
+
+        while (qHead < qTail) {
+            int v = queue[qHead++];
+            for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                int w = r.head[a];
+                if (level[w] == -1 && r.residual(a) > 0.0) {
+                    level[w] = level[v] + 1;
+                    queue[qTail++] = w;
+                }
+            }
+        }
+        return level[r.sink] != -1;
+    }
+
+    /**
+     * Record the excesses of a flow of the given value: all of it has left
+     * the source and reached the sink.
+     */
+    static void setExcess(ResidualGraph r, double value) {
+        Arrays.fill(r.excess, 0.0);
+        r.excess[r.source] = -value;
+        r.excess[r.sink] = value;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.*;
+
+/**
+ * The edges of a graph as parallel primitive arrays, the way a loader
+ * produces them: edge k goes from tail[k] to head[k] with capacity
+ * capacity[k].  Vertices are numbered in order of first appearance and
+ * their names are kept in a VertexNameTable.
+ */
+public class EdgeList {
+
+    int numEdges;
+    int[] tail;
+    int[] head;
+    double[] capacity;
+    VertexNameTable names;
+
+    /**
+     * Create an empty edge list.
+     */
+    public EdgeList() {
+        this(new VertexNameTable(), 1024);
+    }
+
+    /**
+     * Create an empty edge list that numbers vertices with a given table.
+     * @param names  the table of vertex names
+     * @param expectedEdges  the number of edges expected
+     */
+    public EdgeList(VertexNameTable names, int expectedEdges) {
+        this.names = names;
+        this.numEdges = 0;
+        this.tail = new int[Math.max(expectedEdges, 16)];
+        this.head = new int[tail.length];
+        this.capacity = new double[tail.length];
+    }
+
+    /**
+     * Create an edge list from filled arrays.
+     * @param names  the table of vertex names
+     * @param tail  first endpoint of each edge
+     * @param head  second endpoint of each edge
+     * @param capacity  capacity of each edge
+     * @param numEdges  the number of edges in the arrays
+     */
+    public EdgeList(VertexNameTable names, int[] tail, int[] head,
+            double[] capacity, int numEdges) {
+        this.names = names;
+        this.numEdges = numEdges;
+        this.tail = tail;
+        this.head = head;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Append an edge.
+     * @param v  ID of the first endpoint
+     * @param w  ID of the second endpoint
+     * @param c  the capacity of the edge
+     */
+    public void add(int v, int w, double c) {
+        if (numEdges == tail.length) {
+            int length = 2 * numEdges;
+            tail = Arrays.copyOf(tail, length);
+            head = Arrays.copyOf(head, length);
+            capacity = Arrays.copyOf(capacity, length);
+        }
+        tail[numEdges] = v;
+        head[numEdges] = w;
+        capacity[numEdges] = c;
+        numEdges++;
+    }
+
+    /**
+     * Return the number of vertices.
+     * @returns  the number of distinct vertex names
+     */
+    public int numVertices() {
+        return names.size();
+    }
+
+    /**
+     * Return the number of edges.
+     * @returns  the number of edges
+     */
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Return the table of vertex names.
+     * @returns  the name table
+     */
+    public VertexNameTable getNames() {
+        return names;
+    }
+
+    /**
+     * Build the residual graph of these edges.  The vertices named "s" and
+     * "t" become the source and the sink.
+     * @returns  the residual graph, or null if s or t is missing
+     */
+    public ResidualGraph toResidualGraph() {
+        int s = names.find("s");
+        int t = names.find("t");
+        if (s == -1 || t == -1) {
+            System.err.println("Error:source s or sink t not found!");
+            return null;
+        }
+        return new ResidualGraph(names.size(), numEdges, tail, head, capacity,
+                names.toArray(), s, t);
+    }
+}
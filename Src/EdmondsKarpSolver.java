@@ -0,0 +1,66 @@
+import java.util.*;
+
+/**
+ * The Edmonds-Karp algorithm: augment along a shortest source-sink path
+ * of the residual graph, found by BFS, until there is none.  It needs
+ * O(nm) augmentations, each costing O(m).
+ */
+public class EdmondsKarpSolver implements MaxFlowSolver {
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        ResidualGraph r = graph;
+        Arrays.fill(r.flow, 0.0);
+
+        int[] parentArc = new int[r.n];     // arc the BFS reached each vertex by
+        int[] queue = new int[r.n];
+        double value = 0.0;
+
+        while (true) {
+            // BFS from s over residual arcs, stopping once t is reached
+            Arrays.fill(parentArc, -1);
+            int qHead = 0, qTail = 0;
+            queue[qTail++] = source;
+            boolean found = false;
+            while (qHead < qTail && !found) {
+                int v = queue[qHead++];
+                for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                    int w = r.head[a];
+                    if (w != source && parentArc[w] == -1 && r.residual(a) > 0.0) {
+                        parentArc[w] = a;
+                        if (w == sink) {
+                            found = true;
+                            break;
+                        }
+                        queue[qTail++] = w;
+                    }
+                }
+            }
+            if (!found) {
+                break;
+            }
+
+            // Augment by the bottleneck of the path
+            double delta = Double.POSITIVE_INFINITY;
+            for (int w = sink; w != source; w = r.head[r.rev[parentArc[w]]]) {
+                delta = Math.min(delta, r.residual(parentArc[w]));
+            }
+            for (int w = sink; w != source; w = r.head[r.rev[parentArc[w]]]) {
+                int a = parentArc[w];
+                if (r.residual(a) == delta) {
+                    // Exactly cap, see ResidualGraph.saturate
+                    r.saturate(a);
+                }
+                else {
+                    r.flow[a] += delta;
+                    r.flow[r.rev[a]] -= delta;
+                }
+            }
+            value += delta;
+        }
+
+        Arrays.fill(r.height, 0);
+        DinicSolver.setExcess(r, value);
+        return new MaxFlowResult(r, value);
+    }
+}
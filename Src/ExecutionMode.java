@@ -0,0 +1,17 @@
+/**
+ * How the Preflow-Push algorithm runs, see
+ * PreflowPushOptions.setExecutionMode.
+ */
+public enum ExecutionMode {
+    /** one thread, discharging in the order of the selection rule */
+    SEQUENTIAL,
+
+    /** lock-free parallel discharge, see ParallelPushRelabelSolver */
+    ASYNCHRONOUS,
+
+    /** parallel rounds against frozen labels, deterministic; see SynchronousPushRelabelSolver */
+    SYNCHRONOUS,
+
+    /** regions discharged in parallel, see RegionPushRelabelSolver */
+    REGIONS
+}
@@ -0,0 +1,96 @@
+/**
+ * First-in first-out selection of active vertices.
+ *
+ * The queue is a ring buffer of size n; a vertex is stored at most once,
+ * so it never overflows.  Heights are ignored.
+ */
+public class FifoSelection implements VertexSelectionStrategy {
+
+    private int[] queue;
+    private boolean[] active;
+    private int head;          // position of the next vertex to poll
+    private int size;
+
+    /**
+     * Create an empty queue for vertices 0 .. n-1.
+     * @param n  the number of vertices
+     */
+    public FifoSelection(int n) {
+        this.queue = new int[Math.max(1, n)];
+        this.active = new boolean[n];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Return whether the queue is empty.
+     * @returns  true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return whether a vertex is in the queue.
+     * @param v  a vertex
+     * @returns  true if v is active
+     */
+    public boolean isActive(int v) {
+        return active[v];
+    }
+
+    /**
+     * Append a vertex to the queue.  v must not be active already.
+     * @param v  a vertex
+     * @param height  the height of v, ignored
+     */
+    public void add(int v, int height) {
+        int tail = head + size;
+        if (tail >= queue.length) {
+            tail -= queue.length;
+        }
+        queue[tail] = v;
+        active[v] = true;
+        size++;
+    }
+
+    /**
+     * Remove and return the vertex at the head of the queue.
+     * @returns  the vertex, or -1 if the queue is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+
+        int v = queue[head];
+        head++;
+        if (head == queue.length) {
+            head = 0;
+        }
+        size--;
+        active[v] = false;
+        return v;
+    }
+
+    /**
+     * Does nothing; the queue keeps its order when heights change.
+     * @param v  a vertex
+     * @param height  the new height of v
+     */
+    public void heightChanged(int v, int height) {
+        // Order does not depend on heights
+    }
+
+    /**
+     * Remove all vertices.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int p = head + i;
+            active[queue[p < queue.length ? p : p - queue.length]] = false;
+        }
+        head = 0;
+        size = 0;
+    }
+}
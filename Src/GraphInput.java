@@ -45,53 +45,44 @@ public class GraphInput {
      * @returns  a hash table of (String, Vertex) pairs
      */
     public static Hashtable LoadSimpleGraph(SimpleGraph newgraph, String pathandfilename){
-        BufferedReader  inbuf = InputLib.fopen(pathandfilename);
-        System.out.println("Opened " + pathandfilename + " for input.");
-        String  line = InputLib.getLine(inbuf); // get first line
-        StringTokenizer sTok;
-        int n, linenum = 0;
+        EdgeList edges = MappedGraphInput.LoadEdgeList(pathandfilename);
+        if (edges == null) {
+            return null;
+        }
         Hashtable table = new Hashtable();
         SimpleGraph sg = newgraph;
 
-        while (line != null) {
-            linenum++;
-            sTok = new StringTokenizer(line);
-            n = sTok.countTokens();
-            if (n==3) {
-                Double edgedata;
-                Vertex v1, v2;
-                String v1name, v2name;
-
-                v1name = sTok.nextToken();
-                v2name = sTok.nextToken();
-                edgedata = new Double(Double.parseDouble(sTok.nextToken()));
-                v1 = (Vertex) table.get(v1name);
-                if (v1 == null) {
-//                      System.out.println("New vertex " + v1name);
-                        v1 = sg.insertVertex(null, v1name);
-                        table.put(v1name, v1);
-                }
-                v2 = (Vertex) table.get(v2name);
-                if (v2 == null) {
-//                      System.out.println("New vertex " + v2name);
-                    v2 = sg.insertVertex(null, v2name);
-                    table.put(v2name, v2);
-                }
-//              System.out.println("Inserting edge (" + v1name + "," + v2name + ")" + edgedata);
-                sg.insertEdge(v1,v2,edgedata, null);
-            }
-            else {
-                System.err.println("Error:invalid number of tokens found on line " +linenum+ "!");
-                return null;
-            }
-            line = InputLib.getLine(inbuf);
+        // Vertex IDs follow the order of first appearance in the file
+        Vertex[] vertices = new Vertex[edges.numVertices()];
+        for (int id = 0; id < vertices.length; id++) {
+            String name = edges.names.getName(id);
+            vertices[id] = sg.insertVertex(null, name);
+            table.put(name, vertices[id]);
+        }
+        for (int k = 0; k < edges.numEdges; k++) {
+            sg.insertEdge(vertices[edges.tail[k]], vertices[edges.head[k]],
+                    Double.valueOf(edges.capacity[k]), null);
         }
-
-        InputLib.fclose(inbuf);
-        System.out.println("Successfully loaded "+ linenum + " lines. ");
         return table;
     }
 
+    /**
+     * Load graph data from a text file straight into a residual graph,
+     * without creating Vertex and Edge objects.
+     * The file format is the same as for LoadSimpleGraph.  The vertices
+     * named "s" and "t" become the source and the sink.
+     * A file written by GraphSnapshot is recognized and loaded as such.
+     *
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the residual graph, or null if the file is malformed
+     */
+    public static ResidualGraph LoadResidualGraph(String pathandfilename) {
+        if (GraphSnapshot.isSnapshot(pathandfilename)) {
+            return GraphSnapshot.LoadResidualGraph(pathandfilename);
+        }
+        return MappedGraphInput.LoadResidualGraph(pathandfilename);
+    }
+
 
     /**
      * Code to test the methods of this class.
@@ -0,0 +1,264 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * A binary graph format that loads without parsing.
+ *
+ * All numbers are little-endian.  The file consists of
+ * <pre>
+ *   header    magic "MFG1", version, n, numEdges, source, sink  (int each)
+ *             length of the name bytes                            (long)
+ *   tail      numEdges ints, first endpoint of each edge
+ *   head      numEdges ints, second endpoint of each edge
+ *   capacity  numEdges doubles
+ *   offsets   n+1 ints, name v occupies bytes offsets[v] .. offsets[v+1]-1
+ *   names     the UTF-8 bytes of all vertex names
+ * </pre>
+ * The sections are mapped and copied into the arrays in bulk; there is no
+ * per-element decoding.
+ */
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x3147464d;   // "MFG1" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    /** largest part of a file that is mapped at once */
+    private static final long WINDOW = 1L << 30;
+
+    /**
+     * Return whether a file starts with the snapshot magic number.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  true if the file is a snapshot
+     */
+    public static boolean isSnapshot(String pathandfilename) {
+        if (pathandfilename.equals("-")) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(pathandfilename),
+                StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(buf, 0) == 4 && buf.getInt(0) == MAGIC;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write an edge list as a snapshot.  The vertices named "s" and "t"
+     * are recorded as the source and the sink.
+     * @param edges  the edges of a graph
+     * @param pathandfilename  the name of the snapshot file, including full path.
+     * @returns  true on success, false if s or t is missing
+     */
+    public static boolean write(EdgeList edges, String pathandfilename) {
+        VertexNameTable table = edges.getNames();
+        int n = table.size();
+        int numEdges = edges.numEdges();
+        int s = table.find("s");
+        int t = table.find("t");
+        if (s == -1 || t == -1) {
+            System.err.println("Error:source s or sink t not found!");
+            return false;
+        }
+
+        byte[][] names = new byte[n][];
+        long nameBytes = 0;
+        for (int v = 0; v < n; v++) {
+            names[v] = table.getName(v).getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[v].length;
+        }
+        if (nameBytes > Integer.MAX_VALUE) {
+            throw new InputLib.InputError("vertex names too long for " + pathandfilename);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(pathandfilename),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(numEdges)
+                    .putInt(s).putInt(t).putLong(nameBytes);
+
+            for (int k = 0; k < numEdges; k++) {
+                buf = flushIfFull(channel, buf, 4);
+                buf.putInt(edges.tail[k]);
+            }
+            for (int k = 0; k < numEdges; k++) {
+                buf = flushIfFull(channel, buf, 4);
+                buf.putInt(edges.head[k]);
+            }
+            for (int k = 0; k < numEdges; k++) {
+                buf = flushIfFull(channel, buf, 8);
+                buf.putDouble(edges.capacity[k]);
+            }
+            int offset = 0;
+            for (int v = 0; v <= n; v++) {
+                buf = flushIfFull(channel, buf, 4);
+                buf.putInt(offset);
+                if (v < n) {
+                    offset += names[v].length;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                int i = 0;
+                while (i < names[v].length) {
+                    buf = flushIfFull(channel, buf, 1);
+                    int count = Math.min(buf.remaining(), names[v].length - i);
+                    buf.put(names[v], i, count);
+                    i += count;
+                }
+            }
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+        catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Convert a graph file in the text format of GraphInput to a snapshot.
+     * @param textfile  the text file
+     * @param snapshotfile  the snapshot file to write
+     * @returns  true on success, false if the text file is malformed
+     */
+    public static boolean convert(String textfile, String snapshotfile) {
+        EdgeList edges = MappedGraphInput.LoadEdgeList(textfile);
+        return edges != null && write(edges, snapshotfile);
+    }
+
+    /**
+     * Load a snapshot into a residual graph.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the residual graph, or null if the file is not a valid snapshot
+     */
+    public static ResidualGraph LoadResidualGraph(String pathandfilename) {
+        System.out.println("Opened " + pathandfilename + " for input.");
+        try (FileChannel channel = FileChannel.open(Paths.get(pathandfilename),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                System.err.println("Error:" + pathandfilename + " is not a graph snapshot!");
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int magic = header.getInt();
+            int version = header.getInt();
+            int n = header.getInt();
+            int numEdges = header.getInt();
+            int s = header.getInt();
+            int t = header.getInt();
+            long nameBytes = header.getLong();
+            if (magic != MAGIC || version != VERSION) {
+                System.err.println("Error:" + pathandfilename + " is not a graph snapshot!");
+                return null;
+            }
+            long expected = HEADER_BYTES + 16L * numEdges + 4L * (n + 1) + nameBytes;
+            if (n < 0 || numEdges < 0 || nameBytes < 0 || nameBytes > Integer.MAX_VALUE
+                    || size != expected || s < 0 || s >= n || t < 0 || t >= n) {
+                System.err.println("Error:graph snapshot " + pathandfilename + " is damaged!");
+                return null;
+            }
+
+            long position = HEADER_BYTES;
+            int[] tail = new int[numEdges];
+            int[] head = new int[numEdges];
+            double[] capacity = new double[numEdges];
+            int[] offsets = new int[n + 1];
+            byte[] pool = new byte[(int) nameBytes];
+            position = readInts(channel, position, tail);
+            position = readInts(channel, position, head);
+            position = readDoubles(channel, position, capacity);
+            position = readInts(channel, position, offsets);
+            readBytes(channel, position, pool);
+
+            for (int k = 0; k < numEdges; k++) {
+                if (tail[k] < 0 || tail[k] >= n || head[k] < 0 || head[k] >= n) {
+                    System.err.println("Error:graph snapshot " + pathandfilename + " is damaged!");
+                    return null;
+                }
+            }
+            String[] names = new String[n];
+            for (int v = 0; v < n; v++) {
+                int from = offsets[v];
+                int to = offsets[v + 1];
+                if (from < 0 || to < from || to > pool.length) {
+                    System.err.println("Error:graph snapshot " + pathandfilename + " is damaged!");
+                    return null;
+                }
+                names[v] = new String(pool, from, to - from, StandardCharsets.UTF_8);
+            }
+            return new ResidualGraph(n, numEdges, tail, head, capacity, names, s, t);
+        }
+        catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+    }
+
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buf, int needed)
+            throws IOException {
+        if (buf.remaining() < needed) {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+        return buf;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] dst)
+            throws IOException {
+        int step = (int) (WINDOW / 4);
+        for (int i = 0; i < dst.length; i += step) {
+            int count = Math.min(step, dst.length - i);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dst, i, count);
+            position += 4L * count;
+        }
+        return position;
+    }
+
+    private static long readDoubles(FileChannel channel, long position, double[] dst)
+            throws IOException {
+        int step = (int) (WINDOW / 8);
+        for (int i = 0; i < dst.length; i += step) {
+            int count = Math.min(step, dst.length - i);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(dst, i, count);
+            position += 8L * count;
+        }
+        return position;
+    }
+
+    private static long readBytes(FileChannel channel, long position, byte[] dst)
+            throws IOException {
+        if (dst.length > 0) {
+            channel.map(FileChannel.MapMode.READ_ONLY, position, dst.length).get(dst);
+        }
+        return position + dst.length;
+    }
+
+    /**
+     * Convert a text graph file to a snapshot:
+     * java GraphSnapshot input.txt output.graph
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("usage: java GraphSnapshot textfile snapshotfile");
+            System.exit(1);
+        }
+        if (!convert(args[0], args[1])) {
+            System.exit(1);
+        }
+        System.out.println("Wrote " + args[1]);
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.*;
+
+/**
+ * The active vertices of the Preflow-Push algorithm, grouped by height.
+ *
+ * Each height owns an intrusive doubly linked list threaded through the
+ * next/prev arrays, so adding, removing and testing a vertex are O(1).
+ * maxHeight is an upper bound on the height of every active vertex; it only
+ * moves down while polling, so pollHighest is O(1) amortized.  Likewise
+ * minHeight is a lower bound that only moves up while polling, which makes
+ * pollLowest O(1) amortized.  Heights of push-relabel are bounded by 2n,
+ * which is the initial number of buckets.
+ *
+ * As a selection strategy, poll returns the highest or the lowest vertex
+ * depending on how the buckets were created.
+ */
+public class HeightBuckets implements VertexSelectionStrategy {
+
+    private int[] bucket;      // first vertex of each height, -1 if empty
+    private int[] next;        // next vertex in the same bucket, -1 at the end
+    private int[] prev;        // previous vertex in the same bucket, -1 at the start
+    private int[] heightOf;    // bucket each active vertex is stored in
+    private boolean[] active;
+
+    private int maxHeight;
+    private int minHeight;
+    private int size;
+    private boolean highestFirst;
+
+    /**
+     * Create an empty structure for vertices 0 .. n-1 that polls the
+     * highest vertex first.
+     * @param n  the number of vertices
+     */
+    public HeightBuckets(int n) {
+        this(n, true);
+    }
+
+    /**
+     * Create an empty structure for vertices 0 .. n-1.
+     * @param n  the number of vertices
+     * @param highestFirst  true to poll the highest vertex first, false for the lowest
+     */
+    public HeightBuckets(int n, boolean highestFirst) {
+        this.bucket = new int[2 * n + 1];
+        this.next = new int[n];
+        this.prev = new int[n];
+        this.heightOf = new int[n];
+        this.active = new boolean[n];
+        Arrays.fill(bucket, -1);
+        this.maxHeight = 0;
+        this.minHeight = 0;
+        this.size = 0;
+        this.highestFirst = highestFirst;
+    }
+
+    /**
+     * Return whether there are no active vertices.
+     * @returns  true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of active vertices.
+     * @returns  the number of active vertices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether a vertex is currently stored.
+     * @param v  a vertex
+     * @returns  true if v is active
+     */
+    public boolean isActive(int v) {
+        return active[v];
+    }
+
+    /**
+     * Add a vertex at a given height.  v must not be active already.
+     * @param v  a vertex
+     * @param h  the height of v
+     */
+    public void add(int v, int h) {
+        if (h >= bucket.length) {
+            int oldLength = bucket.length;
+            bucket = Arrays.copyOf(bucket, Math.max(h + 1, 2 * oldLength));
+            Arrays.fill(bucket, oldLength, bucket.length, -1);
+        }
+
+        int u = bucket[h];
+        next[v] = u;
+        prev[v] = -1;
+        if (u != -1) {
+            prev[u] = v;
+        }
+        bucket[h] = v;
+        heightOf[v] = h;
+        active[v] = true;
+        size++;
+
+        if (h > maxHeight) {
+            maxHeight = h;
+        }
+        if (h < minHeight || size == 1) {
+            minHeight = h;
+        }
+    }
+
+    /**
+     * Remove an active vertex.
+     * @param v  a vertex
+     */
+    public void remove(int v) {
+        if (prev[v] != -1) {
+            next[prev[v]] = next[v];
+        } else {
+            bucket[heightOf[v]] = next[v];
+        }
+        if (next[v] != -1) {
+            prev[next[v]] = prev[v];
+        }
+        active[v] = false;
+        size--;
+    }
+
+    /**
+     * Remove all vertices.
+     */
+    public void clear() {
+        Arrays.fill(bucket, -1);
+        Arrays.fill(active, false);
+        maxHeight = 0;
+        minHeight = 0;
+        size = 0;
+    }
+
+    /**
+     * Remove and return an active vertex of maximum height.
+     * @returns  the vertex, or -1 if there are no active vertices
+     */
+    public int pollHighest() {
+        if (size == 0) {
+            return -1;
+        }
+        while (bucket[maxHeight] == -1) {
+            maxHeight--;
+        }
+
+        int v = bucket[maxHeight];
+        remove(v);
+        return v;
+    }
+
+    /**
+     * Remove and return an active vertex of minimum height.
+     * @returns  the vertex, or -1 if there are no active vertices
+     */
+    public int pollLowest() {
+        if (size == 0) {
+            return -1;
+        }
+        while (bucket[minHeight] == -1) {
+            minHeight++;
+        }
+
+        int v = bucket[minHeight];
+        remove(v);
+        return v;
+    }
+
+    /**
+     * Remove and return the highest or the lowest active vertex, as chosen
+     * when the buckets were created.
+     * @returns  the vertex, or -1 if there are no active vertices
+     */
+    public int poll() {
+        return highestFirst ? pollHighest() : pollLowest();
+    }
+
+    /**
+     * Move an active vertex to the bucket of its new height.
+     * @param v  a vertex
+     * @param h  the new height of v
+     */
+    public void heightChanged(int v, int h) {
+        if (active[v]) {
+            remove(v);
+            add(v, h);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.*;
+
+/**
+ * A maximum flow that is kept up to date while edge capacities change.
+ *
+ * The first call of solve runs phase 1 of the Preflow-Push algorithm.  The
+ * preflow and the labels it leaves behind are kept, and later calls resume
+ * from them after repairing only what the capacity changes broke:
+ * <ul>
+ * <li>an edge whose flow exceeds its new capacity is clamped; the flow that
+ *     no longer fits stays behind as excess at its tail and shows up as a
+ *     deficit at its head;</li>
+ * <li>a deficit is pushed downstream by taking flow off the arcs that carry
+ *     flow out of the vertex, until it reaches t, s or a vertex with excess;</li>
+ * <li>an edge that gains residual capacity, by a capacity increase or when
+ *     flow is taken off it, may go down more than one level.  Its tail is
+ *     lowered, and so is every vertex whose residual arc into a lowered
+ *     vertex goes down too far.  Arcs out of s are saturated instead, since
+ *     s keeps height n.</li>
+ * </ul>
+ * After that the labels are valid again and the vertices with excess are
+ * discharged as usual.  For a small batch of changes this touches only the
+ * part of the graph around the changed edges.
+ *
+ * Between calls the arcs hold a maximum preflow rather than a flow, which is
+ * all that the flow value and the minimum cut depend on.  The options apply
+ * as in PreflowPushAlgorithm, except that phase 2 never runs and the
+ * execution mode is ignored.
+ */
+public class IncrementalMaxFlow {
+
+    private ResidualGraph r;
+    private PreflowPushAlgorithm algorithm;
+    private boolean solved;
+    private double flowValue;
+
+    // Vertices whose excess, height or arcs changed since the last solve
+    private int[] touched;
+    private int numTouched;
+    private boolean[] isTouched;
+
+    // Vertices with a deficit
+    private int[] deficits;
+    private int numDeficits;
+
+    // Vertices to lower, a ring buffer
+    private int[] queue;
+    private int qHead, qSize;
+    private boolean[] queued;
+
+    private IdentityHashMap<Edge, Integer> edgeIndex;
+
+    /**
+     * Keep the maximum flow of a residual graph up to date, using the
+     * default options.
+     * @param r  the residual graph; its source and sink must be set
+     */
+    public IncrementalMaxFlow(ResidualGraph r) {
+        this(r, new PreflowPushOptions());
+    }
+
+    /**
+     * Keep the maximum flow of a residual graph up to date.
+     * @param r  the residual graph; its source and sink must be set
+     * @param options  the options of the Preflow-Push algorithm
+     */
+    public IncrementalMaxFlow(ResidualGraph r, PreflowPushOptions options) {
+        this.r = r;
+        this.algorithm = new PreflowPushAlgorithm(r, options);
+        this.touched = new int[16];
+        this.isTouched = new boolean[r.n];
+        this.deficits = new int[16];
+        this.queue = new int[r.n];
+        this.queued = new boolean[r.n];
+    }
+
+    /**
+     * Keep the maximum flow of a simple graph up to date.  Capacity changes
+     * made with Edge.setData are picked up by update.
+     * @param g  a simple graph whose edge data are capacities (Doubles)
+     * @param s  the source vertex
+     * @param t  the sink vertex
+     */
+    public IncrementalMaxFlow(SimpleGraph g, Vertex s, Vertex t) {
+        this(ResidualGraph.fromSimpleGraph(g, s, t));
+    }
+
+    /**
+     * Return the residual graph.
+     * @returns  the residual graph holding the current preflow
+     */
+    public ResidualGraph getGraph() {
+        return r;
+    }
+
+    /**
+     * Bring the maximum flow up to date with the capacity changes made
+     * since the last call.
+     * @returns  the value of the maximum flow
+     */
+    public double solve() {
+        if (!solved) {
+            algorithm.initialize();
+            flowValue = algorithm.dischargeAll();
+            solved = true;
+            numTouched = 0;
+            Arrays.fill(isTouched, false);
+            return flowValue;
+        }
+
+        for (int i = 0; i < numTouched; i++) {
+            addDeficit(touched[i]);
+        }
+        repairDeficits();
+        lowerLabels();
+
+        for (int i = 0; i < numTouched; i++) {
+            int v = touched[i];
+            isTouched[v] = false;
+            algorithm.activate(v);
+        }
+        numTouched = 0;
+
+        flowValue = algorithm.dischargeAll();
+        return flowValue;
+    }
+
+    /**
+     * Change the capacity of an edge.  The flow is repaired by the next
+     * call of solve.
+     * @param k  the index of the edge, in the order the graph was built from
+     * @param capacity  the new capacity
+     */
+    public void setCapacity(int k, double capacity) {
+        if (k < 0 || k >= r.arcOfEdge.length) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        if (!(capacity >= 0.0)) {
+            throw new IllegalArgumentException("negative capacity");
+        }
+        int a = r.arcOfEdge[k];
+        int v = r.head[r.rev[a]];
+        int w = r.head[a];
+        r.cap[a] = capacity;
+        if (!solved) {
+            return;
+        }
+
+        if (r.flow[a] > capacity) {
+            // Clamp: the flow that no longer fits stays at v
+            saturate(a);
+        }
+        else if (r.residual(a) > 0.0 && r.height[v] > r.height[w] + 1) {
+            if (v == r.source) {
+                saturate(a);
+            }
+            else {
+                enqueue(v);
+            }
+        }
+        touch(v);
+        touch(w);
+    }
+
+    /**
+     * Pick up the capacities of edges changed with Edge.setData.  Only for
+     * graphs built from a SimpleGraph.
+     * @param edges  the changed edges; their data are the new capacities
+     */
+    public void update(Collection<Edge> edges) {
+        if (r.edges == null) {
+            throw new IllegalStateException("graph was not built from a SimpleGraph");
+        }
+        if (edgeIndex == null) {
+            edgeIndex = new IdentityHashMap<Edge, Integer>(2 * r.edges.length);
+            for (int k = 0; k < r.edges.length; k++) {
+                edgeIndex.put(r.edges[k], k);
+            }
+        }
+        for (Edge e : edges) {
+            Integer k = edgeIndex.get(e);
+            if (k == null) {
+                throw new IllegalArgumentException("edge is not in the graph");
+            }
+            setCapacity(k, (Double) e.getData());
+        }
+    }
+
+    /**
+     * Return the value of the maximum flow found by the last solve.
+     * @returns  the flow value
+     */
+    public double getFlowValue() {
+        return flowValue;
+    }
+
+    /**
+     * Return the flow value and a minimum cut of the last solve.  This
+     * takes time linear in the size of the graph.
+     * @returns  the result, with a copy of the counters of all solves so far
+     */
+    public MaxFlowResult getResult() {
+        MaxFlowResult result = new MaxFlowResult(r, flowValue);
+        result.setMetrics(algorithm.getMetrics().copy());
+        return result;
+    }
+
+    /**
+     * Return the counters of all solves so far.
+     */
+    SolverMetrics getMetrics() {
+        return algorithm.getMetrics();
+    }
+
+    private void touch(int v) {
+        if (!isTouched[v]) {
+            if (numTouched == touched.length) {
+                touched = Arrays.copyOf(touched, 2 * numTouched);
+            }
+            isTouched[v] = true;
+            touched[numTouched++] = v;
+        }
+        // Arcs of v may have become admissible behind its current arc
+        r.current[v] = r.first[v];
+    }
+
+    /**
+     * Add delta to the flow on arc a, moving excess from its tail to its head.
+     */
+    private void moveFlow(int a, double delta) {
+        r.flow[a] += delta;
+        r.flow[r.rev[a]] -= delta;
+        r.excess[r.head[r.rev[a]]] -= delta;
+        r.excess[r.head[a]] += delta;
+    }
+
+    /**
+     * Set the flow on arc a to its capacity exactly, moving the difference
+     * from its tail to its head.
+     */
+    private void saturate(int a) {
+        double delta = r.saturate(a);
+        r.excess[r.head[r.rev[a]]] -= delta;
+        r.excess[r.head[a]] += delta;
+    }
+
+    private void addDeficit(int v) {
+        if (r.excess[v] < 0.0 && v != r.source && v != r.sink) {
+            if (numDeficits == deficits.length) {
+                deficits = Arrays.copyOf(deficits, 2 * numDeficits);
+            }
+            deficits[numDeficits++] = v;
+        }
+    }
+
+    /**
+     * Push every deficit downstream, taking flow off the arcs that carry
+     * flow out of its vertex.  Flow out of a vertex only ever decreases
+     * here, so every step either clears a deficit or empties an arc.  A
+     * deficit means more flow leaves than enters, so such an arc exists.
+     */
+    private void repairDeficits() {
+        while (numDeficits > 0) {
+            int v = deficits[--numDeficits];
+            for (int a = r.first[v]; a < r.first[v + 1] && r.excess[v] < 0.0; a++) {
+                if (r.flow[a] <= 0.0) {
+                    continue;
+                }
+                int w = r.head[a];
+                moveFlow(a, -Math.min(-r.excess[v], r.flow[a]));
+                touch(w);
+                addDeficit(w);
+
+                // a has residual capacity now; it must not go down too far
+                if (r.height[v] > r.height[w] + 1) {
+                    enqueue(v);
+                }
+            }
+        }
+    }
+
+    private void enqueue(int v) {
+        if (!queued[v]) {
+            queued[v] = true;
+            queue[(qHead + qSize) % queue.length] = v;
+            qSize++;
+        }
+    }
+
+    /**
+     * Lower the queued vertices to one above their lowest residual
+     * neighbour, and queue every vertex whose residual arc into a lowered
+     * vertex now goes down too far.
+     */
+    private void lowerLabels() {
+        while (qSize > 0) {
+            int v = queue[qHead];
+            qHead = (qHead + 1) % queue.length;
+            qSize--;
+            queued[v] = false;
+
+            int minHeight = r.height[v];
+            for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                if (r.residual(a) > 0.0) {
+                    minHeight = Math.min(minHeight, r.height[r.head[a]] + 1);
+                }
+            }
+            if (minHeight >= r.height[v]) {
+                continue;
+            }
+            algorithm.setHeight(v, minHeight);
+            touch(v);
+
+            for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                int u = r.head[a];
+                int b = r.rev[a];
+                if (r.residual(b) <= 0.0 || r.height[u] < minHeight + 1 || u == r.sink) {
+                    continue;
+                }
+                if (u == r.source) {
+                    if (r.height[u] > minHeight + 1) {
+                        saturate(b);
+                    }
+                }
+                else if (r.height[u] > minHeight + 1) {
+                    enqueue(u);
+                }
+                else {
+                    // b just became admissible
+                    touch(u);
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@
 
 import java.io.*;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 class InputLib {
     static class InputError extends Error {
@@ -10,7 +11,67 @@ class InputLib {
         }
     }
 
-    /** fopen opens infile or System.in if infile == "-". */
+    /** Formats recognized by compression(). */
+    static final int PLAIN = 0;
+    static final int GZIP = 1;
+    static final int ZSTD = 2;
+
+    /** Size of the buffers between a file and its decompressor. */
+    static final int STREAM_BUFFER = 1 << 16;
+
+    /** compression tells the format of data from its first bytes:
+     *  GZIP for 1f 8b, ZSTD for 28 b5 2f fd, PLAIN otherwise.
+     */
+    public static int compression(byte[] magic, int length) {
+        if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+            return GZIP;
+        if (length >= 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5
+                && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd)
+            return ZSTD;
+        return PLAIN;
+    }
+
+    /** compression tells the format of a stream without consuming
+     *  any of it; in must support mark().
+     */
+    public static int compression(InputStream in) throws IOException {
+        byte[] magic = new byte[4];
+        in.mark(magic.length);
+        int length = in.readNBytes(magic, 0, magic.length);
+        in.reset();
+        return compression(magic, length);
+    }
+
+    /** decompress returns a stream of the decompressed contents of in,
+     *  or in itself if it is not compressed.  Zstandard needs zstd-jni
+     *  on the class path.
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        if (!in.markSupported())
+            in = new BufferedInputStream(in, STREAM_BUFFER);
+
+        switch (compression(in)) {
+        case GZIP:
+            return new GZIPInputStream(in, STREAM_BUFFER);
+        case ZSTD:
+            try {
+                return (InputStream) Class.forName("com.github.luben.zstd.ZstdInputStream")
+                        .getConstructor(InputStream.class).newInstance(in);
+            }
+            catch (java.lang.reflect.InvocationTargetException e) {
+                throw new InputError(e.getCause().getMessage());
+            }
+            catch (ReflectiveOperationException e) {
+                throw new InputError("zstd input needs zstd-jni on the class path");
+            }
+        default:
+            return in;
+        }
+    }
+
+    /** fopen opens infile or System.in if infile == "-".
+     *  gzip and zstd input is decompressed on the fly.
+     */
     public static BufferedReader fopen(String infile) {
         BufferedReader  inbuf;
         try {
@@ -19,6 +80,7 @@ class InputLib {
                 instream = System.in;
             else
                 instream = new FileInputStream(infile);
+            instream = decompress(instream);
 
             InputStreamReader in = new InputStreamReader(instream);
             inbuf = new BufferedReader(in);
@@ -0,0 +1,593 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reads a graph file (in the format of GraphInput) by memory-mapping it
+ * and tokenizing the bytes in place.
+ *
+ * Tokens are separated by spaces, tabs, carriage returns and form feeds,
+ * as with StringTokenizer, so both the tab-separated and the
+ * space-separated files of Graph/ are accepted.  Vertex names are turned
+ * into IDs by a VertexNameTable and capacities are parsed from the bytes,
+ * so no String or Double is created per line.  Files larger than 2GB are
+ * mapped one window at a time.  Large files are parsed in parallel chunks.
+ * gzip and zstd files, and standard input, are parsed as a stream instead.
+ */
+public class MappedGraphInput {
+
+    /** largest part of a file that is mapped at once */
+    private static final long WINDOW = 1L << 30;
+
+    /** smallest chunk worth parsing on its own thread */
+    private static final long MIN_CHUNK = 1L << 20;
+
+    /** size of the blocks a stream is parsed in */
+    private static final int BLOCK = 1 << 22;
+
+    /** number of blocks a reader thread may have ready */
+    private static final int READ_AHEAD = 4;
+
+    /** exact powers of ten for the fast path of parseCapacity */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Load graph data from a text file into an edge list, using one thread
+     * per available processor.
+     * "-" reads the data from System.in instead.
+     *
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the edge list, or null if the file is malformed
+     */
+    public static EdgeList LoadEdgeList(String pathandfilename) {
+        return LoadEdgeList(pathandfilename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load graph data from a text file into an edge list.
+     * "-" reads the data from System.in instead.
+     *
+     * With more than one thread, a large file is cut into chunks at line
+     * boundaries and the chunks are parsed in parallel.  The result is the
+     * same as that of a sequential load: vertex IDs follow the order of first
+     * appearance in the file and edges keep the order of the lines.
+     *
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads  the number of threads to parse with
+     * @returns  the edge list, or null if the file is malformed
+     */
+    public static EdgeList LoadEdgeList(String pathandfilename, int threads) {
+        System.out.println("Opened " + pathandfilename + " for input.");
+        Parser parser;
+
+        try {
+            if (pathandfilename.equals("-")) {
+                InputStream in = new BufferedInputStream(System.in, InputLib.STREAM_BUFFER);
+                boolean compressed = InputLib.compression(in) != InputLib.PLAIN;
+                parser = parseStream(InputLib.decompress(in), compressed);
+            }
+            else {
+                try (FileChannel channel = FileChannel.open(Paths.get(pathandfilename),
+                        StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    ByteBuffer magic = ByteBuffer.allocate(4);
+                    channel.read(magic, 0);
+                    if (InputLib.compression(magic.array(), magic.position()) != InputLib.PLAIN) {
+                        try (InputStream in = InputLib.decompress(Channels.newInputStream(channel))) {
+                            parser = parseStream(in, true);
+                        }
+                    }
+                    else if (threads > 1 && size >= 2 * MIN_CHUNK) {
+                        parser = parseChunks(channel, size, threads);
+                    }
+                    else {
+                        parser = parseWindows(channel, size);
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+
+        if (parser.error != Parser.NO_ERROR) {
+            parser.reportError();
+            return null;
+        }
+        System.out.println("Successfully loaded "+ parser.lines + " lines. ");
+        return parser.edges;
+    }
+
+    /**
+     * Parse a file sequentially, mapping one window at a time.
+     * @returns  the parser, holding the edges or the error
+     */
+    private static Parser parseWindows(FileChannel channel, long size) throws IOException {
+        Parser parser = new Parser(new EdgeList());
+        long position = 0;
+        while (position < size) {
+            long length = Math.min(size - position, WINDOW);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, length);
+
+            // Leave a line that runs past the window to the next one
+            int end = (int) length;
+            if (position + length < size) {
+                end = lineStart(buf, end);
+                if (end == 0) {
+                    throw new InputLib.InputError("line too long at byte " + position);
+                }
+            }
+            if (!parser.parse(buf, 0, end)) {
+                break;
+            }
+            position += end;
+        }
+        return parser;
+    }
+
+    /**
+     * Parse a stream, block by block.  A line that runs past the end of a
+     * block is moved to the front of the buffer and completed by the next.
+     * With readAhead, a separate thread fills the blocks, so that reading
+     * (and decompressing) overlaps with parsing.
+     * @returns  the parser, holding the edges or the error
+     */
+    private static Parser parseStream(InputStream in, boolean readAhead) throws IOException {
+        Parser parser = new Parser(new EdgeList());
+        BlockReader reader = new BlockReader(in);
+        Thread thread = null;
+        if (readAhead) {
+            thread = new Thread(reader, "graph input reader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            byte[] work = new byte[2 * BLOCK];
+            int carry = 0;      // bytes of an unfinished line at the front of work
+            while (true) {
+                ByteBuffer block = readAhead ? reader.take() : reader.read();
+                int length = block.remaining();
+                if (length == 0) {
+                    break;
+                }
+                if (carry + length > work.length) {
+                    work = Arrays.copyOf(work, Math.max(carry + length, 2 * work.length));
+                }
+                block.get(work, carry, length);
+                ByteBuffer buf = ByteBuffer.wrap(work);
+                int filled = carry + length;
+                int end = lineStart(buf, filled);
+                if (!parser.parse(buf, 0, end)) {
+                    return parser;
+                }
+                System.arraycopy(work, end, work, 0, filled - end);
+                carry = filled - end;
+            }
+            parser.parse(ByteBuffer.wrap(work), 0, carry);
+            return parser;
+        }
+        finally {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Reads a stream in blocks of BLOCK bytes; an empty block marks the end.
+     * Run as a thread, it keeps up to READ_AHEAD blocks ready for take().
+     */
+    private static class BlockReader implements Runnable {
+        private final InputStream in;
+        private final ArrayBlockingQueue<ByteBuffer> blocks;
+        private volatile Throwable failure;
+
+        BlockReader(InputStream in) {
+            this.in = in;
+            this.blocks = new ArrayBlockingQueue<ByteBuffer>(READ_AHEAD);
+        }
+
+        ByteBuffer read() throws IOException {
+            byte[] block = new byte[BLOCK];
+            int length = in.readNBytes(block, 0, BLOCK);
+            return ByteBuffer.wrap(block, 0, length);
+        }
+
+        ByteBuffer take() throws IOException {
+            ByteBuffer block;
+            try {
+                block = blocks.take();
+            }
+            catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted while reading input");
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure != null) {
+                throw (Error) failure;
+            }
+            return block;
+        }
+
+        public void run() {
+            try {
+                boolean more;
+                do {
+                    ByteBuffer block;
+                    try {
+                        block = read();
+                    }
+                    catch (IOException | RuntimeException | Error e) {
+                        failure = e;
+                        block = ByteBuffer.allocate(0);
+                    }
+                    more = block.hasRemaining();   // the parser consumes block once it is queued
+                    blocks.put(block);
+                } while (more);
+            }
+            catch (InterruptedException e) {
+                // the parser gave up on the input
+            }
+        }
+    }
+
+    /**
+     * Parse a file in parallel.  Every chunk is parsed into its own edge
+     * list with its own name table; afterwards the local tables are merged
+     * in file order, which gives every name the ID a sequential load would,
+     * and the edges are copied into one list with their IDs translated.
+     * @returns  a parser holding the merged edges, or the first error in the file
+     */
+    private static Parser parseChunks(FileChannel channel, long size, int threads)
+            throws IOException {
+        long target = Math.max(MIN_CHUNK, Math.min(WINDOW / 2, size / (4L * threads)));
+        ArrayList<ChunkTask> chunks = new ArrayList<ChunkTask>();
+        long from = 0;
+        while (from < size) {
+            long to = nextLineStart(channel, Math.min(from + target, size), size);
+            if (to - from > Integer.MAX_VALUE) {
+                throw new InputLib.InputError("line too long at byte " + from);
+            }
+            chunks.add(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from)));
+            from = to;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+
+            // Stop at the first malformed line, counting the lines before it
+            Parser result = new Parser(new EdgeList());
+            int expectedNames = 0;
+            int numEdges = 0;
+            for (ChunkTask chunk : chunks) {
+                result.lines += chunk.parser.lines;
+                if (chunk.parser.error != Parser.NO_ERROR) {
+                    result.error = chunk.parser.error;
+                    return result;
+                }
+                expectedNames = Math.max(expectedNames, chunk.parser.names.size());
+                if (numEdges + (long) chunk.parser.edges.numEdges > Integer.MAX_VALUE) {
+                    throw new InputLib.InputError("too many edges");
+                }
+                numEdges += chunk.parser.edges.numEdges;
+            }
+
+            VertexNameTable names = new VertexNameTable(expectedNames);
+            int offset = 0;
+            for (ChunkTask chunk : chunks) {
+                chunk.ids = names.internAll(chunk.parser.names);
+                chunk.offset = offset;
+                offset += chunk.parser.edges.numEdges;
+            }
+
+            EdgeList edges = new EdgeList(names, new int[numEdges], new int[numEdges],
+                    new double[numEdges], numEdges);
+            pool.invoke(new RecursiveAction() {
+                protected void compute() {
+                    ArrayList<RecursiveAction> copies = new ArrayList<RecursiveAction>();
+                    for (ChunkTask chunk : chunks) {
+                        copies.add(new RecursiveAction() {
+                            protected void compute() {
+                                chunk.copyInto(edges);
+                            }
+                        });
+                    }
+                    invokeAll(copies);
+                }
+            });
+
+            result.edges = edges;
+            return result;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Return the start of the first line that begins at or after a position.
+     * @returns  a position just after a newline, or size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size)
+            throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long p = position - 1;  // the line may start right at position
+        while (p < size) {
+            buf.clear();
+            int n = channel.read(buf, p);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return p + i + 1;
+                }
+            }
+            p += n;
+        }
+        return size;
+    }
+
+    /**
+     * Parses one chunk of a file with a private name table.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final ByteBuffer buf;
+        final Parser parser;
+        int[] ids;      // global ID of each local ID
+        int offset;     // index of the first edge of this chunk in the merged list
+
+        ChunkTask(ByteBuffer buf) {
+            this.buf = buf;
+            this.parser = new Parser(new EdgeList(new VertexNameTable(),
+                    buf.limit() / 16));
+        }
+
+        protected void compute() {
+            parser.parse(buf, 0, buf.limit());
+        }
+
+        void copyInto(EdgeList edges) {
+            EdgeList local = parser.edges;
+            for (int k = 0; k < local.numEdges; k++) {
+                edges.tail[offset + k] = ids[local.tail[k]];
+                edges.head[offset + k] = ids[local.head[k]];
+                edges.capacity[offset + k] = local.capacity[k];
+            }
+        }
+    }
+
+    /**
+     * Load graph data from a text file straight into a residual graph.
+     * The vertices named "s" and "t" become the source and the sink.
+     *
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the residual graph, or null if the file is malformed
+     */
+    public static ResidualGraph LoadResidualGraph(String pathandfilename) {
+        EdgeList edges = LoadEdgeList(pathandfilename);
+        if (edges == null) {
+            return null;
+        }
+        return edges.toResidualGraph();
+    }
+
+    /**
+     * Return the start of the line that contains the byte before end.
+     * @param buf  a buffer
+     * @param end  a position in buf
+     * @returns  the position just after the last newline before end, 0 if none
+     */
+    static int lineStart(ByteBuffer buf, int end) {
+        while (end > 0 && buf.get(end - 1) != '\n') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Turns the lines of a byte range into edges.  Only whole lines may be
+     * passed to parse; the parser counts the lines it has read, and on a
+     * malformed line it stops and remembers the line number and the reason.
+     */
+    static class Parser {
+
+        static final int NO_ERROR = 0;
+        static final int BAD_TOKEN_COUNT = 1;
+        static final int BAD_CAPACITY = 2;
+
+        EdgeList edges;
+        final VertexNameTable names;
+        long lines;         // lines read so far
+        int error;          // NO_ERROR, or why the last line was rejected
+
+        private boolean badCapacity;
+
+        Parser(EdgeList edges) {
+            this.edges = edges;
+            this.names = edges.names;
+            this.lines = 0;
+            this.error = NO_ERROR;
+        }
+
+        /**
+         * Parse the lines in buf[from .. to-1].
+         * @returns  true on success, false if a line is malformed
+         */
+        boolean parse(ByteBuffer buf, int from, int to) {
+            int pos = from;
+            while (pos < to) {
+                lines++;
+                int tokens = 0;
+                int v1 = -1, v2 = -1;
+                double c = 0.0;
+
+                while (true) {
+                    while (pos < to && isBlank(buf.get(pos))) {
+                        pos++;
+                    }
+                    if (pos == to || buf.get(pos) == '\n') {
+                        break;
+                    }
+                    int tokenStart = pos;
+                    byte b;
+                    while (pos < to && (b = buf.get(pos)) != '\n' && !isBlank(b)) {
+                        pos++;
+                    }
+
+                    switch (tokens++) {
+                    case 0:
+                        v1 = names.intern(buf, tokenStart, pos);
+                        break;
+                    case 1:
+                        v2 = names.intern(buf, tokenStart, pos);
+                        break;
+                    case 2:
+                        c = parseCapacity(buf, tokenStart, pos);
+                        break;
+                    default:
+                        break;
+                    }
+                }
+                pos++;  // skip the newline
+
+                if (tokens != 3) {
+                    error = BAD_TOKEN_COUNT;
+                    return false;
+                }
+                if (badCapacity) {
+                    error = BAD_CAPACITY;
+                    return false;
+                }
+                edges.add(v1, v2, c);
+            }
+            return true;
+        }
+
+        /**
+         * Print the error of the last parse, in the words of GraphInput.
+         */
+        void reportError() {
+            long linenum = lines;
+            if (error == BAD_TOKEN_COUNT) {
+                System.err.println("Error:invalid number of tokens found on line " +linenum+ "!");
+            }
+            else if (error == BAD_CAPACITY) {
+                System.err.println("Error:invalid capacity found on line " +linenum+ "!");
+            }
+        }
+
+        /**
+         * Parse a decimal number.  A mantissa of at most 2^53 with a decimal
+         * exponent of at most 22 converts exactly with one multiplication or
+         * division; anything else is left to Double.parseDouble.
+         */
+        private double parseCapacity(ByteBuffer buf, int from, int to) {
+            int i = from;
+            boolean negative = false;
+            byte b = buf.get(i);
+            if (b == '-' || b == '+') {
+                negative = (b == '-');
+                i++;
+            }
+
+            long mantissa = 0;
+            int significant = 0;
+            int scale = 0;
+            boolean digits = false;
+            while (i < to && (b = buf.get(i)) >= '0' && b <= '9') {
+                mantissa = 10 * mantissa + (b - '0');
+                if (mantissa != 0) {
+                    significant++;
+                }
+                digits = true;
+                i++;
+            }
+            if (i < to && buf.get(i) == '.') {
+                i++;
+                while (i < to && (b = buf.get(i)) >= '0' && b <= '9') {
+                    mantissa = 10 * mantissa + (b - '0');
+                    if (mantissa != 0) {
+                        significant++;
+                    }
+                    scale--;
+                    digits = true;
+                    i++;
+                }
+            }
+            if (i < to && ((b = buf.get(i)) == 'e' || b == 'E') && digits) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < to && ((b = buf.get(i)) == '-' || b == '+')) {
+                    negativeExponent = (b == '-');
+                    i++;
+                }
+                int exponent = 0;
+                boolean exponentDigits = false;
+                while (i < to && (b = buf.get(i)) >= '0' && b <= '9' && exponent < 1000) {
+                    exponent = 10 * exponent + (b - '0');
+                    exponentDigits = true;
+                    i++;
+                }
+                if (!exponentDigits) {
+                    return parseSlowly(buf, from, to);
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+
+            if (i != to || !digits || significant > 18 || mantissa > (1L << 53)
+                    || scale < -22 || scale > 22) {
+                return parseSlowly(buf, from, to);
+            }
+            double value = (double) mantissa;
+            if (scale < 0) {
+                value /= POWERS_OF_TEN[-scale];
+            }
+            else {
+                value *= POWERS_OF_TEN[scale];
+            }
+            return negative ? -value : value;
+        }
+
+        private double parseSlowly(ByteBuffer buf, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = from; i < to; i++) {
+                bytes[i - from] = buf.get(i);
+            }
+            try {
+                return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+            }
+            catch (NumberFormatException e) {
+                badCapacity = true;
+                return 0.0;
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.*;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+
+/**
+ * The outcome of a maximum flow computation on a residual graph: the flow
+ * value, the source side of a minimum cut and the edges crossing that cut.
+ *
+ * The source side is the set of vertices that cannot reach the sink in
+ * the residual graph.  It is found with one backward BFS from the sink
+ * over the residual arcs, so this works right after phase 1 of
+ * Preflow-Push as well as on a complete flow, and the graph is not copied.
+ * ParametricMaxFlow finds its nested cuts itself and makes results that
+ * only build a cut when it is asked for.
+ */
+public class MaxFlowResult {
+
+    private ResidualGraph graph;
+    private double flowValue;
+    private BitSet sourceSide;
+    private int[] cutEdges;
+    private double cutCapacity;
+    private SolverMetrics metrics;
+
+    // How to make the cut of a lazy result, until it is made
+    private Supplier<BitSet> lazySourceSide;
+    private IntToDoubleFunction lazyCapacity;
+
+    /**
+     * Derive the minimum cut from a residual graph holding a maximum
+     * preflow or flow.
+     * @param graph  the residual graph after solving
+     * @param flowValue  the value of the maximum flow
+     */
+    public MaxFlowResult(ResidualGraph graph, double flowValue) {
+        this.graph = graph;
+        this.flowValue = flowValue;
+        this.sourceSide = sourceSide(graph);
+
+        // Capacities may change later, e.g. in a parametric sweep
+        findCut(k -> graph.cap[graph.arcOfEdge[k]]);
+    }
+
+    /**
+     * A result whose minimum cut is only worked out when it is first asked
+     * for, so that making it does not cost time linear in the graph.
+     * @param graph  the residual graph the cut is in
+     * @param flowValue  the value of the maximum flow
+     * @param sourceSide  makes the source side of the minimum cut
+     * @param capacity  the capacity of each edge, by edge index, for the
+     *                  flow this result is about
+     */
+    MaxFlowResult(ResidualGraph graph, double flowValue, Supplier<BitSet> sourceSide,
+            IntToDoubleFunction capacity) {
+        this.graph = graph;
+        this.flowValue = flowValue;
+        this.lazySourceSide = sourceSide;
+        this.lazyCapacity = capacity;
+    }
+
+    /**
+     * Find the edges from the source side to the sink side, all saturated,
+     * and add up their capacities.
+     */
+    private void findCut(IntToDoubleFunction capacity) {
+        int count = 0;
+        int[] cut = new int[16];
+        for (int k = 0; k < graph.arcOfEdge.length; k++) {
+            int a = graph.arcOfEdge[k];
+            int v = graph.head[graph.rev[a]];
+            int w = graph.head[a];
+
+            if (sourceSide.get(v) && !sourceSide.get(w)) {
+                if (count == cut.length) {
+                    cut = Arrays.copyOf(cut, 2 * count);
+                }
+                cut[count++] = k;
+            }
+        }
+        this.cutEdges = Arrays.copyOf(cut, count);
+
+        for (int k : cutEdges) {
+            this.cutCapacity += capacity.applyAsDouble(k);
+        }
+    }
+
+    /**
+     * Work out the minimum cut of a lazy result, if not done yet.
+     */
+    private void resolve() {
+        if (lazySourceSide != null) {
+            sourceSide = lazySourceSide.get();
+            findCut(lazyCapacity);
+            lazySourceSide = null;
+            lazyCapacity = null;
+        }
+    }
+
+    /**
+     * Return the set of vertices that cannot reach the sink of a residual
+     * graph, found by a backward BFS from the sink.
+     * @param r  a residual graph
+     * @returns  the source side of a minimum cut, as a set of vertex IDs
+     */
+    public static BitSet sourceSide(ResidualGraph r) {
+        BitSet sinkSide = new BitSet(r.n);
+        int[] queue = new int[r.n];
+        int qHead = 0, qTail = 0;
+
+        sinkSide.set(r.sink);
+        queue[qTail++] = r.sink;
+        while (qHead < qTail) {
+            int w = queue[qHead++];
+
+            for (int a = r.first[w]; a < r.first[w + 1]; a++) {
+                int v = r.head[a];
+
+                // v can reach w if the reverse arc v->w has residual capacity
+                if (!sinkSide.get(v) && r.residual(r.rev[a]) > 0.0) {
+                    sinkSide.set(v);
+                    queue[qTail++] = v;
+                }
+            }
+        }
+
+        sinkSide.flip(0, r.n);
+        return sinkSide;
+    }
+
+    /**
+     * Return the value of the maximum flow.
+     * @returns  the flow value
+     */
+    public double getFlowValue() {
+        return this.flowValue;
+    }
+
+    /**
+     * Return the source side of the minimum cut.
+     * @returns  a set of vertex IDs containing the source but not the sink
+     */
+    public BitSet getSourceSide() {
+        resolve();
+        return this.sourceSide;
+    }
+
+    /**
+     * Return the edges that cross the minimum cut from the source side to
+     * the sink side.  They are given by their position in the input edge
+     * list, and all of them are saturated.
+     * @returns  indices of the cut edges, in input order
+     */
+    public int[] getCutEdges() {
+        resolve();
+        return this.cutEdges;
+    }
+
+    /**
+     * Return the cut edges as Edge objects.  Only available when the
+     * residual graph was built from a SimpleGraph.
+     * @returns  the cut edges, or null if the graph has no Edge objects
+     */
+    public List<Edge> getCutEdgeList() {
+        if (graph.edges == null) {
+            return null;
+        }
+
+        List<Edge> list = new ArrayList<Edge>(getCutEdges().length);
+        for (int k : cutEdges) {
+            list.add(graph.edges[k]);
+        }
+        return list;
+    }
+
+    /**
+     * Return the operation counts and timings of the run, if the solver
+     * recorded them.
+     * @returns  the metrics, or null
+     */
+    public SolverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Attach the metrics of the run that produced this result.
+     * @param metrics  the metrics
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Return the total capacity of the cut edges when the result was made,
+     * which equals the flow value.
+     * @returns  the capacity of the minimum cut
+     */
+    public double getCutCapacity() {
+        resolve();
+        return this.cutCapacity;
+    }
+}
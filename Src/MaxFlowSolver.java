@@ -0,0 +1,20 @@
+/**
+ * An algorithm that computes a maximum flow and a minimum cut on a
+ * residual graph.
+ *
+ * All solvers work on the arrays of ResidualGraph, so the same graph can be
+ * handed to each of them in turn.  A solver starts from the zero flow and
+ * leaves the maximum flow on the arcs of the graph.
+ */
+public interface MaxFlowSolver {
+
+    /**
+     * Compute a maximum flow from source to sink.  The graph records the
+     * two vertices as its source and sink.
+     * @param graph  a residual graph
+     * @param source  ID of the source vertex
+     * @param sink  ID of the sink vertex
+     * @returns  the flow value and a minimum cut
+     */
+    MaxFlowResult solve(ResidualGraph graph, int source, int sink);
+}
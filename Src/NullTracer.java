@@ -0,0 +1,47 @@
+/**
+ * A tracer that ignores all events.  This is the default.
+ */
+public final class NullTracer implements PreflowTracer {
+
+    /** the shared instance */
+    public static final NullTracer INSTANCE = new NullTracer();
+
+    private NullTracer() {
+    }
+
+    @Override
+    public void begin(ResidualGraph r) {
+    }
+
+    @Override
+    public void phase(int phase) {
+    }
+
+    @Override
+    public void poll(int v) {
+    }
+
+    @Override
+    public void push(int v, int a, double delta, boolean saturating) {
+    }
+
+    @Override
+    public void relabel(int v, int height) {
+    }
+
+    @Override
+    public void activate(int v, double excess, int height) {
+    }
+
+    @Override
+    public void gap(int height, int lifted) {
+    }
+
+    @Override
+    public void globalRelabel() {
+    }
+
+    @Override
+    public void end(double flowValue) {
+    }
+}
@@ -0,0 +1,316 @@
+import java.lang.invoke.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A multi-threaded Preflow-Push solver after Hong's lock-free push-relabel
+ * algorithm.
+ *
+ * Every active vertex is discharged by a ForkJoin task; a vertex is claimed
+ * with a CAS on its flag, so only one thread works on it at a time.  A push
+ * into a vertex that becomes active forks a task for it on the local deque
+ * of the pushing worker, and idle workers steal from the others.
+ *
+ * Flow and excess stay in the double arrays of the residual graph; flows
+ * are changed by compare-and-set and excesses by atomic adds.  Only the owner of u lowers the residual
+ * capacity of an arc leaving u or the excess of u, so the amounts it reads
+ * can only grow underneath it.  Heights are written by their owner alone.
+ * As in Hong's algorithm, u pushes to its lowest residual neighbour if that
+ * one is below u, and otherwise relabels to one more than that neighbour;
+ * this stays correct when neighbour heights are stale.
+ *
+ * Global relabels stop the world: once enough relabels have happened the
+ * tasks return, the pool drains, the labels are recomputed by one thread
+ * and the active vertices are resubmitted.  Only phase 1 runs in parallel;
+ * it determines the flow value and the minimum cut.  Phase 2 returns the
+ * remaining excess to s sequentially.  The selection rule, gap relabeling
+ * and the tracer of the options do not apply to this solver.
+ *
+ * The flow value is the excess of t, a sum of atomic adds in an order that
+ * depends on thread scheduling.  It is exact for integer capacities; for
+ * others it can differ from the sequential value by rounding errors, and
+ * SolverCheck accepts a relative difference of 1e-9.  For the same reason
+ * the two flows of an arc pair that both endpoints pushed along at the
+ * same time may differ from exact negatives by a rounding error.
+ */
+public class ParallelPushRelabelSolver implements MaxFlowSolver {
+
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private PreflowPushOptions options;
+    private int threads;
+
+    /**
+     * Create a solver with the default options and one thread per
+     * available processor.
+     */
+    public ParallelPushRelabelSolver() {
+        this(new PreflowPushOptions(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a solver.
+     * @param options  the global relabel frequency and min-cut-only setting
+     * @param threads  the number of worker threads
+     */
+    public ParallelPushRelabelSolver(PreflowPushOptions options, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        this.options = options;
+        this.threads = threads;
+    }
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Run run = new Run(graph, pool);
+            run.execute();
+            return PreflowPushAlgorithm.finish(graph, options, run.metrics);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The state of one solve.
+     */
+    private class Run {
+        final ResidualGraph r;
+        final ForkJoinPool pool;
+        final int[] claimed;            // 1 while a task owns the vertex
+        final long globalRelabelPeriod;
+        final AtomicLong relabelsSinceGlobal = new AtomicLong();
+        final AtomicInteger pending = new AtomicInteger();    // tasks not finished yet
+        volatile boolean globalRelabelDue;
+        volatile Throwable failure;
+
+        final LongAdder saturatingPushes = new LongAdder();
+        final LongAdder nonsaturatingPushes = new LongAdder();
+        final LongAdder relabels = new LongAdder();
+        final LongAdder activations = new LongAdder();
+        final LongAdder polls = new LongAdder();
+        final LongAdder arcScans = new LongAdder();
+        final SolverMetrics metrics = new SolverMetrics();
+
+        Run(ResidualGraph r, ForkJoinPool pool) {
+            this.r = r;
+            this.pool = pool;
+            this.claimed = new int[r.n];
+            this.globalRelabelPeriod = options.isGlobalRelabeling()
+                    ? (long) Math.ceil(options.getGlobalRelabelFrequency() * r.n)
+                    : Long.MAX_VALUE;
+        }
+
+        /**
+         * Phase 1: compute a maximum preflow.
+         */
+        void execute() {
+            long start = System.nanoTime();
+
+            PreflowPushAlgorithm.initPreflow(r);
+            PreflowPushAlgorithm.globalRelabel(r);
+            metrics.globalRelabels++;
+
+            long mainLoopStart = System.nanoTime();
+            metrics.initNanos = mainLoopStart - start;
+
+            // Phase 1: discharge in parallel until the pool drains, with a
+            // global relabel in between whenever one is due
+            while (true) {
+                int submitted = 0;
+                for (int v = 0; v < r.n; v++) {
+                    if (isActive(v) && claim(v)) {
+                        pending.incrementAndGet();
+                        pool.execute(new Discharge(v));
+                        submitted++;
+                    }
+                }
+                if (submitted == 0) {
+                    break;
+                }
+                awaitTasks();
+                if (failure != null) {
+                    throw new IllegalStateException("discharge failed", failure);
+                }
+
+                if (globalRelabelDue) {
+                    PreflowPushAlgorithm.globalRelabel(r);
+                    metrics.globalRelabels++;
+                    relabelsSinceGlobal.set(0);
+                    globalRelabelDue = false;
+                }
+            }
+
+            metrics.mainLoopNanos = System.nanoTime() - mainLoopStart;
+            metrics.saturatingPushes = saturatingPushes.sum();
+            metrics.nonsaturatingPushes = nonsaturatingPushes.sum();
+            metrics.relabels = relabels.sum();
+            metrics.activations = activations.sum();
+            metrics.polls = polls.sum();
+            metrics.arcScans = arcScans.sum();
+        }
+
+        /**
+         * Wait until every discharge task has finished.  A task is counted
+         * before it is forked, and its parent is still counted then, so the
+         * count only reaches 0 when no work is left.
+         */
+        synchronized void awaitTasks() {
+            while (pending.get() != 0) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while solving", e);
+                }
+            }
+        }
+
+        synchronized void taskFinished() {
+            notifyAll();
+        }
+
+        /**
+         * Return whether v has excess and can still reach t.
+         */
+        boolean isActive(int v) {
+            return v != r.source && v != r.sink
+                    && (double) DOUBLES.getVolatile(r.excess, v) > 0.0
+                    && (int) INTS.getAcquire(r.height, v) < r.n;
+        }
+
+        boolean claim(int v) {
+            if (INTS.compareAndSet(claimed, v, 0, 1)) {
+                activations.increment();
+                return true;
+            }
+            return false;
+        }
+
+        double residual(int a) {
+            return r.cap[a] - (double) DOUBLES.getVolatile(r.flow, a);
+        }
+
+        /**
+         * Push and relabel u until it has no excess, reaches height n, or a
+         * global relabel is due.  The caller owns u.
+         */
+        void discharge(int u) {
+            int n = r.n;
+            while (!globalRelabelDue) {
+                double e = (double) DOUBLES.getVolatile(r.excess, u);
+                int hu = r.height[u];
+                if (e <= 0.0 || hu >= n) {
+                    return;
+                }
+
+                // Find the lowest neighbour over a residual arc
+                int best = -1;
+                int hMin = Integer.MAX_VALUE;
+                for (int a = r.first[u]; a < r.first[u + 1]; a++) {
+                    if (residual(a) > 0.0) {
+                        int h = (int) INTS.getAcquire(r.height, r.head[a]);
+                        if (h < hMin) {
+                            hMin = h;
+                            best = a;
+                        }
+                    }
+                }
+                arcScans.add(r.first[u + 1] - r.first[u]);
+
+                if (best == -1) {
+                    // Nothing leaves u; cannot happen while u has excess
+                    INTS.setRelease(r.height, u, 2 * n);
+                    return;
+                }
+
+                if (hu > hMin) {
+                    int w = r.head[best];
+                    int back = r.rev[best];
+
+                    // Take the capacity first, so w never sees residual
+                    // capacity or excess that is not there yet.  The owner
+                    // of w may push back along the reverse arc meanwhile,
+                    // so both flows are updated by compare-and-set.  A
+                    // saturating push sets the flow to exactly cap, since
+                    // adding the residual capacity can miss it by a
+                    // rounding error (see ResidualGraph.saturate)
+                    double f, g, delta, filled;
+                    boolean saturating;
+                    do {
+                        f = (double) DOUBLES.getVolatile(r.flow, best);
+                        double available = r.cap[best] - f;
+                        saturating = (e >= available);
+                        delta = saturating ? available : e;
+                        filled = saturating ? r.cap[best] : f + delta;
+                    } while (!DOUBLES.compareAndSet(r.flow, best, f, filled));
+                    do {
+                        g = (double) DOUBLES.getVolatile(r.flow, back);
+                    } while (!DOUBLES.compareAndSet(r.flow, back, g,
+                            g == 0.0 - f ? 0.0 - filled : g - delta));
+
+                    DOUBLES.getAndAdd(r.excess, u, -delta);
+                    DOUBLES.getAndAdd(r.excess, w, delta);
+                    if (saturating) {
+                        saturatingPushes.increment();
+                    }
+                    else {
+                        nonsaturatingPushes.increment();
+                    }
+
+                    if (isActive(w) && claim(w)) {
+                        pending.incrementAndGet();
+                        new Discharge(w).fork();
+                    }
+                }
+                else {
+                    INTS.setRelease(r.height, u, hMin + 1);
+                    relabels.increment();
+                    if (relabelsSinceGlobal.incrementAndGet() >= globalRelabelPeriod) {
+                        globalRelabelDue = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Discharges one claimed vertex and gives up the claim.  Excess that
+         * arrives while the claim is being released is picked up by checking
+         * again afterwards: a pusher adds excess before it tries to claim,
+         * and the owner releases before it looks at the excess again.
+         */
+        private class Discharge extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            final int v;
+
+            Discharge(int v) {
+                this.v = v;
+            }
+
+            protected void compute() {
+                try {
+                    do {
+                        polls.increment();
+                        discharge(v);
+                        INTS.setVolatile(claimed, v, 0);
+                    } while (!globalRelabelDue && isActive(v) && claim(v));
+                }
+                catch (Throwable e) {
+                    failure = e;
+                    INTS.setVolatile(claimed, v, 0);
+                }
+                finally {
+                    if (pending.decrementAndGet() == 0) {
+                        taskFinished();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -3,226 +3,698 @@ import java.util.*;
 
 
 public class PreflowPushAlgorithm {
+	
+	// State of one run of the algorithm
+	private ResidualGraph r;
+	private PreflowPushOptions options;
+	private VertexSelectionStrategy activeVertices;
+	private int[] heightCount;
+	private long globalRelabelPeriod;
+	private long relabelsSinceGlobal;
+	private PreflowTracer tracer;
+	private SolverMetrics metrics;
+	
+	PreflowPushAlgorithm(ResidualGraph r, PreflowPushOptions options) {
+		this.r = r;
+		this.options = options;
+		
+		// Keep vertices which have positive excess in the selection structure
+		this.activeVertices = newSelectionStrategy(r, options.getSelectionRule());
+		
+		// Number of vertices at each height below n, for gap detection
+		this.heightCount = new int[r.n];
+		
+		// Run a global relabel after this many relabels
+		this.globalRelabelPeriod = (long) Math.ceil(options.getGlobalRelabelFrequency() * r.n);
+		this.relabelsSinceGlobal = 0;
+		
+		this.tracer = options.getTracer();
+		this.metrics = new SolverMetrics();
+	}
 
-	//
-    // Search all the possible adjacent vertices lower than a given vertex,
-	// then create an adjacency list of searched vertices for the given vertex
-	//
-    public static void updateAdjacencyList(SimpleGraph g, Vertex v) {
-    	// Clear the adjacency list and set current to the start
-    	v.adjacencyList.clear();
-    	v.current = 0;
+    //
+    // Compute excess of a vertex from scratch by summing the flow on its arcs.
+    // Only used to validate the incremental bookkeeping, see checkExcess
+    //
+    public static double computeExcess(ResidualGraph r, int v) {
+    	double excessCnt = 0.0;
     	
-    	// Update the adjacency list of v
-    	for (int i=0; i<v.incidentEdgeList.size(); i++) {
-    		Edge e = (Edge) v.incidentEdgeList.get(i);
-    		Vertex w = g.opposite(v, e);
-    		
-    		// If height of w is 1 less than v
-    		if ((int) v.getHeight() == (int) (w.getHeight() + 1) ) {
-    			// If e is a forward edge
-    			if (g.direction(v, w)
-    					// For forward edge, if there is room for flow to increase
-    					&& (double) e.getFlow() < (double) e.getData()) {
-    				v.adjacencyList.add(w);
-    			}
-    			// If e is a backward edge
-    			else if (!g.direction(v, w) 
-    					// For backward edge, if there is room for flow to decrease
-    					&& (double) e.getFlow() > 0.0) {
-    				v.adjacencyList.add(w);
-    			}
-    		}
+    	// Flow into v shows up as negative flow on the arcs leaving v
+    	for (int a=r.first[v]; a<r.first[v+1]; a++) {
+    		excessCnt = excessCnt - r.flow[a];
     	}
+    	
+    	return excessCnt;
+    }
+    
+    //
+    // Check that the stored excess of v agrees with its arcs. This is
+    // O(deg(v)), so it is only called from assert statements and runs
+    // when assertions are enabled (java -ea)
+    //
+    public static boolean checkExcess(ResidualGraph r, int v) {
+    	double expected = computeExcess(r, v);
+    	
+    	return Math.abs(expected - r.excess[v]) <= 1e-9 * Math.max(1.0, Math.abs(expected));
     }
     	
     //
-    // Push operation
+    // Push operation along arc a leaving v
     //
-	public static boolean push(SimpleGraph g, Vertex v, Vertex w) {
-		Edge e = g.findEdge(v, w);
-		Double delta = 0.0;
+	public static boolean push(ResidualGraph r, int v, int a) {
+		int w = r.head[a];
+		double delta;
 		boolean isSaturating = false;
 		
-		// Forward edge
-		if (g.direction(v, w)) {			
-			// Update the smaller one
-			if ((double) v.getExcess() < (double) ((Double)e.getData()-e.getFlow())) {
-				delta = v.getExcess();
-			}else {
-				delta = (Double)e.getData() - e.getFlow();
-				isSaturating = true;
-			}
+		// Update the smaller one
+		if (r.excess[v] < r.residual(a)) {
+			delta = r.excess[v];
+			r.flow[a] += delta;
+			r.flow[r.rev[a]] -= delta;
+		}else {
+			// Fill a up to exactly its capacity, see ResidualGraph.saturate
+			delta = r.saturate(a);
+			isSaturating = true;
 		}
-		// Backward edge
-		else {
-			// Update the smaller one
-			if ((double) v.getExcess() < (double) e.getFlow()) {
-				delta = -v.getExcess();
-			}else {
-				delta = -e.getFlow();
-				isSaturating = true;
-			}
-		}
-			
-		e.setFlow(e.getFlow() + delta);
 		
 		//Update excess of v and w after changing a flow
-		v.updateExcess();
-		w.updateExcess();
+		r.excess[v] -= delta;
+		r.excess[w] += delta;
+		assert checkExcess(r, v) && checkExcess(r, w);
 		
 		// False for a nonsaturating push, true for a saturating push
 		return isSaturating;
 	}
 
 	//
-	// Relabel operation
+	// Check whether arc a leaving v is admissible: it has residual capacity
+	// and its head is exactly one level below v
 	//
-	public static void relabel(SimpleGraph g, Vertex v) {
-		v.relabel();
-		
-		// Update adjacency list of v, once v is relabeled
-		updateAdjacencyList(g, v);
+	public static boolean isAdmissible(ResidualGraph r, int v, int a) {
+		return r.height[v] == r.height[r.head[a]] + 1 && r.residual(a) > 0.0;
+	}
+	
+	//
+	// Relabel operation: lift v to one above its lowest residual neighbor,
+	// pointing the current arc of v at the first arc to such a neighbor.
+	// Arcs of other vertices that point into v are no longer admissible;
+	// they get skipped when their current arc reaches them
+	//
+	public static void relabel(ResidualGraph r, int v) {
+		int minHeight = Integer.MAX_VALUE;
+		int minArc = r.first[v];
 		
-		// Update adjacency list of related vertices concerning v, once v is relabeled
-		for (int i=0; i<v.incidentEdgeList.size(); i++) {
-			Edge e = (Edge) v.incidentEdgeList.get(i);
-			Vertex w = g.opposite(v, e);
-			
-			// Only update vertices that have v in their adjacency lists
-			if (w.adjacencyList.contains(v)) {
-				updateAdjacencyList(g, w);
+		for (int a=r.first[v]; a<r.first[v+1]; a++) {
+			if (r.residual(a) > 0.0 && r.height[r.head[a]] < minHeight) {
+				minHeight = r.height[r.head[a]];
+				minArc = a;
 			}
 		}
+		
+		// No residual arc at all: v can reach neither t nor s
+		if (minHeight == Integer.MAX_VALUE) {
+			r.height[v] = 2 * r.n;
+		}else {
+			r.height[v] = minHeight + 1;
+		}
+		r.current[v] = minArc;
 	}
 	
 	//
-	// Preflow-Push algorithm main process
+	// Phase 2: turn the preflow left by phase 1 into a flow by sending the
+	// remaining excess back to s. A DFS over the arcs that carry positive
+	// flow first cancels flow cycles, so the flow becomes acyclic. The
+	// vertices are then visited in DFS finishing order, which is a reverse
+	// topological order, and each returns its excess along the arcs that
+	// carry flow into it
 	//
-	public static void PreflowPush(SimpleGraph graph, Hashtable table) {
-		LinkedList eList = graph.edgeList;
-		LinkedList vList = graph.vertexList;
-		
-		// Use a max heap to store vertices which have positive excess
-		PriorityQueue<Vertex> excessMaxHeap = new PriorityQueue<Vertex>(
-				graph.numVertices(), new Comparator<Vertex>() { 
-		    @Override
-		    public int compare(Vertex v, Vertex w) {
-		    	return w.getHeight() - v.getHeight();
-		    }
-		});
-		
-		// Initialize height for all the vertices		
-		for (int i=0; i<vList.size(); i++) {
-			Vertex v = (Vertex) vList.get(i);
+	public static void returnExcess(ResidualGraph r) {
+		final int WHITE = 0, GREY = 1, BLACK = 2;
+		int[] color = new int[r.n];
+		int[] parentArc = new int[r.n];
+		int[] order = new int[r.n];
+		int finished = 0;
+		
+		for (int v=0; v<r.n; v++) {
+			r.current[v] = r.first[v];
+		}
+		
+		// The DFS never enters the terminals
+		color[r.source] = BLACK;
+		color[r.sink] = BLACK;
+		
+		for (int root=0; root<r.n; root++) {
+			if (color[root] != WHITE) {
+				continue;
+			}
+			color[root] = GREY;
+			parentArc[root] = -1;
+			int v = root;
 			
-			if (v.isSource()) {
-				v.setHeight(graph.numVertices());
-			}else {
-				v.setHeight(0);
+			while (v != -1) {
+				// v is finished: all its flow goes to finished vertices
+				if (r.current[v] == r.first[v+1]) {
+					color[v] = BLACK;
+					order[finished++] = v;
+					v = (parentArc[v] == -1) ? -1 : r.head[r.rev[parentArc[v]]];
+					continue;
+				}
+				
+				int a = r.current[v];
+				int w = r.head[a];
+				
+				if (r.flow[a] <= 0.0 || color[w] == BLACK) {
+					r.current[v]++;
+				}
+				else if (color[w] == WHITE) {
+					color[w] = GREY;
+					parentArc[w] = a;
+					v = w;
+				}
+				else {
+					// w is on the DFS path, so the path from w to v plus a is a cycle
+					double delta = r.flow[a];
+					for (int u=v; u!=w; u=r.head[r.rev[parentArc[u]]]) {
+						delta = Math.min(delta, r.flow[parentArc[u]]);
+					}
+					
+					r.flow[a] -= delta;
+					r.flow[r.rev[a]] += delta;
+					for (int u=v; u!=w; u=r.head[r.rev[parentArc[u]]]) {
+						r.flow[parentArc[u]] -= delta;
+						r.flow[r.rev[parentArc[u]]] += delta;
+					}
+					
+					// Resume at the tail of the emptied arc closest to w
+					int restart = (r.flow[a] == 0.0) ? v : -1;
+					for (int u=v; u!=w; u=r.head[r.rev[parentArc[u]]]) {
+						if (r.flow[parentArc[u]] == 0.0) {
+							restart = r.head[r.rev[parentArc[u]]];
+						}
+					}
+					for (int u=v; u!=restart; u=r.head[r.rev[parentArc[u]]]) {
+						color[u] = WHITE;
+						r.current[u] = r.first[u];
+					}
+					v = restart;
+				}
 			}
 		}
-
-		// Initialize flow for all the edges
-		for (int i=0; i<eList.size(); i++) {
-			Edge e = (Edge) eList.get(i);
+		
+		// Return excess along incoming flow, from the end of the flow backwards
+		for (int i=0; i<finished; i++) {
+			int v = order[i];
 			
-			if (e.getFirstEndpoint().getName().equals("s") 
-					|| e.getSecondEndpoint().getName().equals("s")) {
-				e.setFlow((Double) e.getData());
-			}else {
-				e.setFlow(0.0);
+			for (int a=r.first[v]; a<r.first[v+1] && r.excess[v] > 0.0; a++) {
+				// Flow into v shows up as negative flow on the arcs leaving v
+				if (r.flow[a] < 0.0) {
+					double delta = Math.min(r.excess[v], -r.flow[a]);
+					
+					r.flow[a] += delta;
+					r.flow[r.rev[a]] -= delta;
+					r.excess[v] -= delta;
+					r.excess[r.head[a]] += delta;
+				}
 			}
 		}
+		
+		for (int v=0; v<r.n; v++) {
+			r.current[v] = r.first[v];
+		}
+	}
 	
-		// Update excess for all the vertices
-		// Initially add positive-excess vertices to max heap 
-		for (int i=0; i<vList.size(); i++) {
-			Vertex v = (Vertex) vList.get(i);
-			v.updateExcess();
+	//
+	// Pick a selection rule from simple statistics of the graph. Layered
+	// graphs where t is at most three arcs from s, like bipartite matching
+	// networks, do well with FIFO: every vertex is discharged a few times
+	// and the queue costs nothing. Deeper graphs such as meshes get
+	// highest-label, which has the best bound, O(n^2 sqrt(m))
+	//
+	public static SelectionRule chooseSelectionRule(ResidualGraph r) {
+		int[] distance = new int[r.n];
+		int[] queue = new int[r.n];
+		int qHead = 0, qTail = 0;
+		
+		Arrays.fill(distance, -1);
+		distance[r.source] = 0;
+		queue[qTail++] = r.source;
+		
+		// BFS from s over arcs with positive capacity
+		while (qHead < qTail && distance[r.sink] == -1) {
+			int v = queue[qHead++];
 			
-			if ((double) v.getExcess() > 0.0) {
-				excessMaxHeap.add(v);
+			for (int a=r.first[v]; a<r.first[v+1]; a++) {
+				int w = r.head[a];
+				
+				if (distance[w] == -1 && r.cap[a] > 0.0) {
+					distance[w] = distance[v] + 1;
+					queue[qTail++] = w;
+				}
 			}
 		}
-
-		// Start algorithm
-		while (!excessMaxHeap.isEmpty()) {
+		
+		if (distance[r.sink] != -1 && distance[r.sink] <= 3) {
+			return SelectionRule.FIFO;
+		}
+		return SelectionRule.HIGHEST_LABEL;
+	}
+	
+	//
+	// Create the active-vertex structure for a selection rule
+	//
+	public static VertexSelectionStrategy newSelectionStrategy(ResidualGraph r, SelectionRule rule) {
+		switch (rule) {
+		case FIFO:
+			return new FifoSelection(r.n);
+		case LOWEST_LABEL:
+			return new HeightBuckets(r.n, false);
+		case WAVE:
+			return new WaveSelection(r.n);
+		case AUTOMATIC:
+			return newSelectionStrategy(r, chooseSelectionRule(r));
+		default:
+			return new HeightBuckets(r.n, true);
+		}
+	}
+	
+	//
+	// Global relabel operation: recompute exact distance labels with a
+	// backward BFS from t over the residual graph. Vertices that cannot
+	// reach t get n plus their distance to s, so their excess goes straight
+	// back to the source; vertices reaching neither get 2n
+	//
+	public static void globalRelabel(ResidualGraph r) {
+		int[] queue = new int[r.n];
+		
+		for (int v=0; v<r.n; v++) {
+			r.height[v] = -1;
+			r.current[v] = r.first[v];
+		}
+		r.height[r.sink] = 0;
+		r.height[r.source] = r.n;
+		
+		// Distances to t, then distances to s for the remaining vertices
+		int[] roots = {r.sink, r.source};
+		for (int root : roots) {
+			int qHead = 0, qTail = 0;
+			queue[qTail++] = root;
 			
-			Vertex v = excessMaxHeap.poll();
-			System.out.println("Poll out " + v.getName());
+			while (qHead < qTail) {
+				int w = queue[qHead++];
+				
+				for (int a=r.first[w]; a<r.first[w+1]; a++) {
+					int v = r.head[a];
+					
+					// v can reach w if the reverse arc v->w has residual capacity
+					if (r.height[v] == -1 && r.residual(r.rev[a]) > 0.0) {
+						r.height[v] = r.height[w] + 1;
+						queue[qTail++] = v;
+					}
+				}
+			}
+		}
+		
+		for (int v=0; v<r.n; v++) {
+			if (r.height[v] == -1) {
+				r.height[v] = 2 * r.n;
+			}
+		}
+	}
+	
+	//
+	// Count the vertices other than s at every height below n
+	//
+	public static void countHeights(ResidualGraph r, int[] heightCount) {
+		Arrays.fill(heightCount, 0);
+		
+		for (int v=0; v<r.n; v++) {
+			if (v != r.source && r.height[v] < r.n) {
+				heightCount[r.height[v]]++;
+			}
+		}
+	}
+	
+	//
+	// Gap relabel operation: no vertex is left at height h, so no vertex
+	// above h can reach t any more. Lift all vertices with height in (h, n)
+	// to n+1 in one sweep, telling the selection strategy about each.
+	// Returns the number of lifted vertices
+	//
+	public static int gapRelabel(ResidualGraph r, int h, int[] heightCount, 
+			VertexSelectionStrategy activeVertices) {
+		int lifted = 0;
+		
+		for (int v=0; v<r.n; v++) {
+			if (v != r.source && r.height[v] > h && r.height[v] < r.n) {
+				heightCount[r.height[v]]--;
+				r.height[v] = r.n + 1;
+				r.current[v] = r.first[v];
+				lifted++;
+				
+				activeVertices.heightChanged(v, r.height[v]);
+			}
+		}
+		
+		return lifted;
+	}
+	
+	//
+	// Preflow-Push algorithm on a simple graph: the graph is converted to a
+	// residual graph once, solved, and the flow is copied back to its edges
+	//
+	public static MaxFlowResult PreflowPush(SimpleGraph graph, Hashtable table) {
+		ResidualGraph r = ResidualGraph.fromSimpleGraph(graph, 
+				(Vertex) table.get("s"), (Vertex) table.get("t"));
+		
+		MaxFlowResult result = solve(r, new PreflowPushOptions());
+		r.writeBack();
+		
+		System.out.println("Maximum flow of the graph is " + result.getFlowValue());
+		System.out.println("Minimum cut has " + result.getSourceSide().cardinality() + 
+				" vertices on the source side and " + result.getCutEdges().length + " cut edges");
+		return result;
+	}
+	
+	//
+	// Run the Preflow-Push algorithm and return the flow value together
+	// with a minimum cut; the parallel execution modes hand the graph to
+	// their solver
+	//
+	public static MaxFlowResult solve(ResidualGraph r, PreflowPushOptions options) {
+		switch (options.getExecutionMode()) {
+		case ASYNCHRONOUS:
+			return new ParallelPushRelabelSolver(options, options.getThreads())
+					.solve(r, r.source, r.sink);
+		case SYNCHRONOUS:
+			return new SynchronousPushRelabelSolver(options, options.getThreads())
+					.solve(r, r.source, r.sink);
+		case REGIONS:
+			return new RegionPushRelabelSolver(options, options.getThreads())
+					.solve(r, r.source, r.sink);
+		default:
+			break;
+		}
+		
+		PreflowPushAlgorithm algorithm = new PreflowPushAlgorithm(r, options);
+		double maxFlow = algorithm.run();
+		
+		long start = System.nanoTime();
+		MaxFlowResult result = new MaxFlowResult(r, maxFlow);
+		algorithm.metrics.resultNanos = System.nanoTime() - start;
+		
+		result.setMetrics(algorithm.metrics);
+		return result;
+	}
+	
+	//
+	// Preflow-Push algorithm main process with default options
+	//
+	public static double PreflowPush(ResidualGraph r) {
+		return PreflowPush(r, new PreflowPushOptions());
+	}
+	
+	//
+	// Preflow-Push algorithm main process
+	//
+	public static double PreflowPush(ResidualGraph r, PreflowPushOptions options) {
+		if (options.getExecutionMode() != ExecutionMode.SEQUENTIAL) {
+			return solve(r, options).getFlowValue();
+		}
+		return new PreflowPushAlgorithm(r, options).run();
+	}
+	
+	//
+	// Add v to the selection structure if it has positive excess, can
+	// still reach t (height below n) and is not active yet
+	//
+	void activate(int v) {
+		if (r.excess[v] > 0.0 
+				&& v != r.sink 
+				&& r.height[v] < r.n
+				&& !activeVertices.isActive(v)) {
+			activeVertices.add(v, r.height[v]);
+			metrics.activations++;
+			tracer.activate(v, r.excess[v], r.height[v]);
+		}
+	}
+	
+	//
+	// Add all the vertices with positive excess, highest first, so that
+	// order-based strategies start from a topological order
+	//
+	private void activateAll() {
+		int maxHeight = 2 * r.n + 1;
+		int[] countAbove = new int[maxHeight + 2];
+		int[] order = new int[r.n];
+		
+		// Counting sort by decreasing height
+		for (int v=0; v<r.n; v++) {
+			countAbove[maxHeight - Math.min(r.height[v], maxHeight) + 1]++;
+		}
+		for (int h=1; h<countAbove.length; h++) {
+			countAbove[h] += countAbove[h-1];
+		}
+		for (int v=0; v<r.n; v++) {
+			order[countAbove[maxHeight - Math.min(r.height[v], maxHeight)]++] = v;
+		}
+		
+		for (int i=0; i<r.n; i++) {
+			activate(order[i]);
+		}
+	}
+	
+	//
+	// Recompute all the labels and refill the selection structure
+	//
+	void globalUpdate() {
+		globalRelabel(r);
+		countHeights(r, heightCount);
+		relabelsSinceGlobal = 0;
+		metrics.globalRelabels++;
+		tracer.globalRelabel();
+		
+		activeVertices.clear();
+		activateAll();
+	}
+	
+	//
+	// Discharge operation: push the excess of v along admissible arcs and
+	// relabel v whenever its current arc runs off the end, until v has no
+	// excess left or reaches height n. Only vertices that become active are
+	// added to the selection structure. Returns true if it stopped early
+	// because a global relabel is due
+	//
+	private boolean discharge(int v) {
+		while (r.excess[v] > 0.0 && r.height[v] < r.n) {
 			
-			// If v hasn't set up adjacency list yet, set it up
-			if (v.adjacencyList.isEmpty()) {
-				updateAdjacencyList(graph, v);
+			// Advance the current arc past arcs that are not admissible
+			while (r.current[v] < r.first[v+1] && !isAdmissible(r, v, r.current[v])) {
+				r.current[v]++;
+				metrics.arcScans++;
 			}
 			
 			// Case 1: Relabel
-			if ((int) v.current == v.adjacencyList.size()) {
-				relabel(graph, v); 
-				System.out.println("Relabel " + v.getName() + " with [height: " + v.getHeight() + "]");
+			if (r.current[v] == r.first[v+1]) {
+				int oldHeight = r.height[v];
+				
+				relabel(r, v); 
+				metrics.relabels++;
+				metrics.arcScans += r.first[v+1] - r.first[v];
+				tracer.relabel(v, r.height[v]);
+				relabelsSinceGlobal++;
+				activeVertices.heightChanged(v, r.height[v]);
+				
+				if (oldHeight < r.n) {
+					heightCount[oldHeight]--;
+				}
+				if (r.height[v] < r.n) {
+					heightCount[r.height[v]]++;
+				}
 				
-				// Add v to max heap again if excess of v is positive
-				if ((double) v.getExcess() > 0.0 
-						&& !v.getName().equals("t") 
-						&& !excessMaxHeap.contains(v)) {
-					excessMaxHeap.add(v);
-					System.out.println("Add " + v.getName() + " with [excess: " + v.getExcess() + 
-						", height: " + v.getHeight() + "]");
+				// If v was the last vertex at its old height, there is a gap
+				if (options.isGapRelabeling() && oldHeight < r.n && heightCount[oldHeight] == 0) {
+					int lifted = gapRelabel(r, oldHeight, heightCount, activeVertices);
+					metrics.gaps++;
+					metrics.gapLiftedVertices += lifted;
+					tracer.gap(oldHeight, lifted);
+				}
+				
+				if (options.isGlobalRelabeling() && relabelsSinceGlobal >= globalRelabelPeriod) {
+					return true;
 				}
 			}
 			// Case 2: Push
 			else {
-				Vertex w = (Vertex) v.adjacencyList.get(v.current);
-				Edge e = graph.findEdge(v, w);
+				int a = r.current[v];
+				int w = r.head[a];
 				boolean isSaturatingPush;
 				
-				isSaturatingPush = push(graph, v, w);	
+				double excessBefore = r.excess[v];
+				isSaturatingPush = push(r, v, a);	
+				tracer.push(v, a, excessBefore - r.excess[v], isSaturatingPush);
 				
+				// Move to next arc
 				if (isSaturatingPush) {
-					System.out.println("Saturating Push " + v.getName() + " to " + w.getName() + 
-							" with [flow: " + e.getFlow() + "]");
+					r.current[v]++;
+					metrics.saturatingPushes++;
 				}else {
-					System.out.println("Nonsaturating Push " + v.getName() + " to " + w.getName() + 
-							" with [flow: " + e.getFlow() + "]");
-				}
-				
-				// Add v to max heap again if excess of v is positive
-				if ((double) v.getExcess() > 0.0 
-						&& !v.getName().equals("t") 
-						&& !excessMaxHeap.contains(v)) {
-					excessMaxHeap.add(v);
-					System.out.println("Add " + v.getName() + " with [excess: " + v.getExcess() + 
-							", height: " + v.getHeight() + "]");
-				}
-				
-				// Add v to max heap again if excess of v is positive
-				if ((double) w.getExcess() > 0.0 
-						&& !w.getName().equals("t") 
-						&& !excessMaxHeap.contains(w)) {
-					excessMaxHeap.add(w);
-					System.out.println("Add " + w.getName() + " with [excess: " + w.getExcess() + 
-							", height: " + w.getHeight() + "]");
+					metrics.nonsaturatingPushes++;
 				}
 				
-				// If the push is a saturating push, move to next edge
-				if (isSaturatingPush) {
-					v.current++;
-				}
+				activate(w);
 			}
 		}
 		
-		System.out.println("\nPreflow-Push finished");
+		return false;
+	}
+	
+	private double run() {
+		initialize();
+		dischargeAll();
+		
+		long phase2Start = System.nanoTime();
+		
+		// Phase 2: return the excess that is left to s
+		if (!options.isMinCutOnly()) {
+			tracer.phase(2);
+			returnExcess(r);
+		}
+		metrics.returnExcessNanos = System.nanoTime() - phase2Start;
+		
+		// The maximum flow is the flow that reached t
+		tracer.end(r.excess[r.sink]);
+		return r.excess[r.sink];
+	}
+	
+	//
+	// The initial preflow, shared by all push-relabel solvers: the zero
+	// flow plus saturated source arcs, heights 0 except s at n, and every
+	// current arc at the start of its list
+	//
+	static void initPreflow(ResidualGraph r) {
+		int s = r.source;
+		
+		// Initialize height and excess for all the vertices		
+		for (int v=0; v<r.n; v++) {
+			r.height[v] = 0;
+			r.excess[v] = 0.0;
+			r.current[v] = r.first[v];
+		}
+		r.height[s] = r.n;
+
+		// Initialize flow for all the arcs
+		for (int a=0; a<r.m; a++) {
+			r.flow[a] = 0.0;
+		}
+	
+		// Saturate the arcs leaving s, updating excess as we go
+		for (int a=r.first[s]; a<r.first[s+1]; a++) {
+			int w = r.head[a];
+			
+			r.flow[a] = r.cap[a];
+			r.flow[r.rev[a]] = -r.cap[a];
+			r.excess[s] -= r.cap[a];
+			r.excess[w] += r.cap[a];
+		}
+	}
+	
+	//
+	// The end of a solve by one of the parallel solvers, after their phase
+	// 1: return the excess that is left to s unless only the cut is wanted,
+	// then derive the flow value and a minimum cut. Both steps are timed
+	// into metrics, which the result carries
+	//
+	static MaxFlowResult finish(ResidualGraph r, PreflowPushOptions options, SolverMetrics metrics) {
+		long phase2Start = System.nanoTime();
+		
+		// Phase 2: return the excess that is left to s
+		if (!options.isMinCutOnly()) {
+			returnExcess(r);
+		}
+		metrics.returnExcessNanos = System.nanoTime() - phase2Start;
+		
+		long start = System.nanoTime();
+		MaxFlowResult result = new MaxFlowResult(r, r.excess[r.sink]);
+		metrics.resultNanos = System.nanoTime() - start;
+		
+		result.setMetrics(metrics);
+		return result;
+	}
+	
+	//
+	// Start phase 1: the initial preflow, with the active vertices in the
+	// selection structure
+	//
+	void initialize() {
+		long start = System.nanoTime();
+		
+		tracer.begin(r);
+		tracer.phase(1);
 		
-		// Calculate the maximum flow
-		double maxFlow = 0.0;
-		Vertex s = (Vertex) table.get("s");
+		initPreflow(r);
 		
-		for (int i=0; i<s.incidentEdgeList.size(); i++) {
-			Edge e = (Edge) s.incidentEdgeList.get(i);
-			maxFlow = maxFlow + e.getFlow();
+		// Start from exact distance labels
+		if (options.isGlobalRelabeling()) {
+			globalRelabel(r);
+			metrics.globalRelabels++;
 		}
-		System.out.println("Maximum flow of the graph is " + maxFlow);
+		countHeights(r, heightCount);
+		
+		// Initially add positive-excess vertices to the selection structure
+		activateAll();
+		
+		metrics.initNanos = System.nanoTime() - start;
+	}
+	
+	//
+	// Phase 1: discharge active vertices until none can reach t. Returns
+	// the value of the preflow, the excess of t
+	//
+	double dischargeAll() {
+		long mainLoopStart = System.nanoTime();
+		
+		while (!activeVertices.isEmpty()) {
+			
+			int v = activeVertices.poll();
+			metrics.polls++;
+			tracer.poll(v);
+			
+			// A gap may have lifted v after it was added
+			if (r.height[v] >= r.n) {
+				continue;
+			}
+			
+			if (discharge(v)) {
+				globalUpdate();
+			}
+		}
+		
+		metrics.mainLoopNanos += System.nanoTime() - mainLoopStart;
+		return r.excess[r.sink];
+	}
+	
+	//
+	// Change the height of v from outside a discharge, keeping the height
+	// counts and the selection structure up to date
+	//
+	void setHeight(int v, int h) {
+		int oldHeight = r.height[v];
+		
+		if (oldHeight < r.n && v != r.source) {
+			heightCount[oldHeight]--;
+		}
+		r.height[v] = h;
+		if (h < r.n && v != r.source) {
+			heightCount[h]++;
+		}
+		activeVertices.heightChanged(v, h);
+	}
+	
+	//
+	// The counters of this run so far
+	//
+	SolverMetrics getMetrics() {
+		return metrics;
 	}
 	
 		
@@ -0,0 +1,177 @@
+/**
+ * Settings for one run of the Preflow-Push algorithm.
+ * A fresh object holds the default settings.
+ */
+public class PreflowPushOptions {
+
+    /** run a global relabel after this many relabels per vertex, 0 to disable */
+    private double globalRelabelFrequency;
+
+    /** lift vertices above an empty height straight to n+1 */
+    private boolean gapRelabeling;
+
+    /** how the next active vertex is picked */
+    private SelectionRule selectionRule;
+
+    /** stop after phase 1, leaving a preflow instead of a flow */
+    private boolean minCutOnly;
+
+    /** receives the events of the run */
+    private PreflowTracer tracer;
+
+    /** sequential, or one of the parallel modes */
+    private ExecutionMode executionMode;
+
+    /** worker threads of the parallel modes */
+    private int threads;
+
+    /**
+     * Constructor that sets the default options.
+     */
+    public PreflowPushOptions() {
+        this.globalRelabelFrequency = 1.0;
+        this.gapRelabeling = true;
+        this.selectionRule = SelectionRule.HIGHEST_LABEL;
+        this.minCutOnly = false;
+        this.tracer = NullTracer.INSTANCE;
+        this.executionMode = ExecutionMode.SEQUENTIAL;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Return how often global relabeling runs.  A global relabel is
+     * performed every (frequency * n) relabel operations; 0 disables it.
+     * @returns  the global relabel frequency
+     */
+    public double getGlobalRelabelFrequency() {
+        return this.globalRelabelFrequency;
+    }
+
+    /**
+     * Set how often global relabeling runs.
+     * @param frequency  relabels per vertex between two global relabels, 0 to disable
+     */
+    public void setGlobalRelabelFrequency(double frequency) {
+        if (frequency < 0.0) {
+            throw new IllegalArgumentException("negative global relabel frequency");
+        }
+        this.globalRelabelFrequency = frequency;
+    }
+
+    /**
+     * Return whether global relabeling is enabled.
+     * @returns  true if global relabeling is enabled
+     */
+    public boolean isGlobalRelabeling() {
+        return this.globalRelabelFrequency > 0.0;
+    }
+
+    /**
+     * Return whether the gap relabeling heuristic is enabled.
+     * @returns  true if gap relabeling is enabled
+     */
+    public boolean isGapRelabeling() {
+        return this.gapRelabeling;
+    }
+
+    /**
+     * Switch the gap relabeling heuristic on or off.
+     * @param gapRelabeling  true to enable gap relabeling
+     */
+    public void setGapRelabeling(boolean gapRelabeling) {
+        this.gapRelabeling = gapRelabeling;
+    }
+
+    /**
+     * Return the active-vertex selection rule.
+     * @returns  the selection rule
+     */
+    public SelectionRule getSelectionRule() {
+        return this.selectionRule;
+    }
+
+    /**
+     * Set the active-vertex selection rule.
+     * @param selectionRule  the selection rule, AUTOMATIC to pick one per graph
+     */
+    public void setSelectionRule(SelectionRule selectionRule) {
+        if (selectionRule == null) {
+            throw new IllegalArgumentException("null selection rule");
+        }
+        this.selectionRule = selectionRule;
+    }
+
+    /**
+     * Return whether the algorithm stops after phase 1.  Phase 1 already
+     * determines the maximum flow value and a minimum cut; phase 2 only
+     * turns the preflow into a valid flow assignment.
+     * @returns  true if phase 2 is skipped
+     */
+    public boolean isMinCutOnly() {
+        return this.minCutOnly;
+    }
+
+    /**
+     * Choose whether to skip phase 2.  When it is skipped, the flow left on
+     * the arcs is a preflow: vertices that cannot reach t may keep excess.
+     * @param minCutOnly  true to skip phase 2
+     */
+    public void setMinCutOnly(boolean minCutOnly) {
+        this.minCutOnly = minCutOnly;
+    }
+
+    /**
+     * Return the tracer that receives the events of the run.
+     * @returns  the tracer, NullTracer.INSTANCE by default
+     */
+    public PreflowTracer getTracer() {
+        return this.tracer;
+    }
+
+    /**
+     * Set the tracer that receives the events of the run.
+     * @param tracer  a tracer, or null for no tracing
+     */
+    public void setTracer(PreflowTracer tracer) {
+        this.tracer = (tracer == null) ? NullTracer.INSTANCE : tracer;
+    }
+
+    /**
+     * Return how the algorithm runs.
+     * @returns  the execution mode, SEQUENTIAL by default
+     */
+    public ExecutionMode getExecutionMode() {
+        return this.executionMode;
+    }
+
+    /**
+     * Set how the algorithm runs.  The parallel modes ignore the selection
+     * rule, gap relabeling and the tracer.
+     * @param executionMode  the execution mode
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        if (executionMode == null) {
+            throw new IllegalArgumentException("null execution mode");
+        }
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Return the number of worker threads of the parallel modes.
+     * @returns  the number of threads, one per available processor by default
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Set the number of worker threads of the parallel modes.
+     * @param threads  the number of threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * The Preflow-Push algorithm of PreflowPushAlgorithm as a MaxFlowSolver.
+ */
+public class PreflowPushSolver implements MaxFlowSolver {
+
+    private PreflowPushOptions options;
+
+    /**
+     * Create a solver with the default options.
+     */
+    public PreflowPushSolver() {
+        this(new PreflowPushOptions());
+    }
+
+    /**
+     * Create a solver with the given options.
+     * @param options  the options of every run
+     */
+    public PreflowPushSolver(PreflowPushOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Return the options of this solver.
+     * @returns  the options
+     */
+    public PreflowPushOptions getOptions() {
+        return options;
+    }
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        return PreflowPushAlgorithm.solve(graph, options);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Receives the events of one run of the Preflow-Push algorithm.
+ *
+ * All arguments are primitives, so a call never allocates.  The solver
+ * uses NullTracer unless told otherwise; its methods are empty, so the
+ * JIT inlines the monomorphic calls away and tracing costs nothing when
+ * it is off.  Implementations must not change the graph.
+ */
+public interface PreflowTracer {
+
+    /**
+     * A run starts on a residual graph.
+     * @param r  the graph being solved
+     */
+    void begin(ResidualGraph r);
+
+    /**
+     * A phase starts: 1 for computing the preflow, 2 for returning excess.
+     * @param phase  the phase number
+     */
+    void phase(int phase);
+
+    /**
+     * Vertex v was taken from the active vertices to be discharged.
+     * @param v  a vertex
+     */
+    void poll(int v);
+
+    /**
+     * delta units of flow were pushed from v along arc a.
+     * @param v  the tail of a
+     * @param a  an arc
+     * @param delta  the amount pushed
+     * @param saturating  true if a has no residual capacity left
+     */
+    void push(int v, int a, double delta, boolean saturating);
+
+    /**
+     * Vertex v was relabeled.
+     * @param v  a vertex
+     * @param height  the new height of v
+     */
+    void relabel(int v, int height);
+
+    /**
+     * Vertex v became active.
+     * @param v  a vertex
+     * @param excess  the excess of v
+     * @param height  the height of v
+     */
+    void activate(int v, double excess, int height);
+
+    /**
+     * A gap at some height lifted vertices above it.
+     * @param height  the empty height
+     * @param lifted  the number of lifted vertices
+     */
+    void gap(int height, int lifted);
+
+    /**
+     * All labels were recomputed.
+     */
+    void globalRelabel();
+
+    /**
+     * The run finished.
+     * @param flowValue  the value of the maximum flow
+     */
+    void end(double flowValue);
+}
@@ -0,0 +1,95 @@
+import java.io.*;
+
+/**
+ * A tracer that prints events as text, filtered by level.
+ *
+ * SUMMARY prints phases, global relabels, gaps and the result; VERTEX adds
+ * polls, relabels and activations; ARC adds every push.  The messages are
+ * the ones PreflowPush used to print on System.out.
+ */
+public class PrintTracer implements PreflowTracer {
+
+    public static final int SUMMARY = 1;
+    public static final int VERTEX = 2;
+    public static final int ARC = 3;
+
+    private PrintStream out;
+    private int level;
+    private ResidualGraph r;
+
+    /**
+     * Create a tracer printing everything up to a level.
+     * @param out  where to print
+     * @param level  SUMMARY, VERTEX or ARC
+     */
+    public PrintTracer(PrintStream out, int level) {
+        this.out = out;
+        this.level = level;
+    }
+
+    @Override
+    public void begin(ResidualGraph r) {
+        this.r = r;
+        if (level >= SUMMARY) {
+            out.println("Preflow-Push started on " + r.n + " vertices and " + r.m + " arcs");
+        }
+    }
+
+    @Override
+    public void phase(int phase) {
+        if (level >= SUMMARY) {
+            out.println("Phase " + phase);
+        }
+    }
+
+    @Override
+    public void poll(int v) {
+        if (level >= VERTEX) {
+            out.println("Poll out " + r.names[v]);
+        }
+    }
+
+    @Override
+    public void push(int v, int a, double delta, boolean saturating) {
+        if (level >= ARC) {
+            out.println((saturating ? "Saturating Push " : "Nonsaturating Push ") + r.names[v] +
+                    " to " + r.names[r.head[a]] + " with [flow: " + r.flow[a] + "]");
+        }
+    }
+
+    @Override
+    public void relabel(int v, int height) {
+        if (level >= VERTEX) {
+            out.println("Relabel " + r.names[v] + " with [height: " + height + "]");
+        }
+    }
+
+    @Override
+    public void activate(int v, double excess, int height) {
+        if (level >= VERTEX) {
+            out.println("Add " + r.names[v] + " with [excess: " + excess +
+                    ", height: " + height + "]");
+        }
+    }
+
+    @Override
+    public void gap(int height, int lifted) {
+        if (level >= SUMMARY) {
+            out.println("Gap at height " + height + ", lifted " + lifted + " vertices");
+        }
+    }
+
+    @Override
+    public void globalRelabel() {
+        if (level >= SUMMARY) {
+            out.println("Global relabel");
+        }
+    }
+
+    @Override
+    public void end(double flowValue) {
+        if (level >= SUMMARY) {
+            out.println("Preflow-Push finished with flow " + flowValue);
+        }
+    }
+}
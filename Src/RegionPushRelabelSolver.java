@@ -0,0 +1,604 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A parallel Preflow-Push solver that partitions the graph into regions,
+ * in the spirit of Delong and Boykov's region push-relabel.
+ *
+ * The vertices are cut into regions of consecutive vertices in BFS order,
+ * so a region is a connected block on mesh-like graphs.  Every region
+ * copies its vertices and the arcs leaving them into arrays of its own,
+ * which are small enough to stay in cache while the region is discharged.
+ *
+ * The solver works in rounds.  In a round every region with active
+ * vertices is discharged on its own thread, using its internal arcs only.
+ * The labels of vertices in other regions are read from a snapshot taken
+ * at the start of the round; since labels only grow, a relabel against the
+ * snapshot keeps the labels valid.  A vertex whose excess can only leave
+ * over an admissible boundary arc is parked.  Between rounds the parked
+ * vertices push across the boundary one after the other, which activates
+ * the receiving vertices in their regions for the next round; a parked
+ * vertex that still has excess relabels in its region then.
+ *
+ * After every (frequency * region size) relabels a region relabels itself
+ * as a whole: its heights become the distances within the region to t or
+ * to a boundary arc, which repairs the labels along the boundary without
+ * looking at the rest of the graph.  Global relabels run between rounds.
+ * Every step is an ordinary push or relabel on valid labels, so the usual
+ * bounds apply, and the result does not depend on thread scheduling.
+ *
+ * Only phase 1 runs in parallel; phase 2 returns the remaining excess to s
+ * sequentially.  The selection rule, gap relabeling and the tracer of the
+ * options do not apply to this solver.
+ */
+public class RegionPushRelabelSolver implements MaxFlowSolver {
+
+    /** default number of vertices per region */
+    public static final int DEFAULT_REGION_SIZE = 4096;
+
+    private PreflowPushOptions options;
+    private int threads;
+    private int regionSize;
+
+    /**
+     * Create a solver with the default options and one thread per
+     * available processor.
+     */
+    public RegionPushRelabelSolver() {
+        this(new PreflowPushOptions(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a solver with the default region size.
+     * @param options  the global relabel frequency and min-cut-only setting
+     * @param threads  the number of worker threads
+     */
+    public RegionPushRelabelSolver(PreflowPushOptions options, int threads) {
+        this(options, threads, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Create a solver.
+     * @param options  the global relabel frequency and min-cut-only setting
+     * @param threads  the number of worker threads
+     * @param regionSize  the number of vertices per region
+     */
+    public RegionPushRelabelSolver(PreflowPushOptions options, int threads, int regionSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        if (regionSize < 1) {
+            throw new IllegalArgumentException("need at least one vertex per region");
+        }
+        this.options = options;
+        this.threads = threads;
+        this.regionSize = regionSize;
+    }
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Run run = new Run(graph, pool);
+            run.execute();
+            return PreflowPushAlgorithm.finish(graph, options, run.metrics);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Return the vertices in BFS order over the arcs of both directions,
+     * starting from s and then from every vertex not reached yet.
+     */
+    static int[] bfsOrder(ResidualGraph r) {
+        int[] order = new int[r.n];
+        boolean[] seen = new boolean[r.n];
+        int size = 0;
+
+        for (int i = -1; i < r.n; i++) {
+            int root = (i == -1) ? r.source : i;
+            if (seen[root]) {
+                continue;
+            }
+            seen[root] = true;
+            int qHead = size;
+            order[size++] = root;
+            while (qHead < size) {
+                int v = order[qHead++];
+                for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                    int w = r.head[a];
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        order[size++] = w;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * The state of one solve.
+     */
+    private class Run {
+        final ResidualGraph r;
+        final ForkJoinPool pool;
+        final long globalRelabelPeriod;
+        final SolverMetrics metrics = new SolverMetrics();
+
+        final Region[] regions;
+        final int[] regionOf;       // region of each vertex
+        final int[] localIndex;     // index of each vertex in its region
+        final int[] label;          // heights as of the start of the round
+
+        Run(ResidualGraph r, ForkJoinPool pool) {
+            this.r = r;
+            this.pool = pool;
+            this.globalRelabelPeriod = options.isGlobalRelabeling()
+                    ? (long) Math.ceil(options.getGlobalRelabelFrequency() * r.n)
+                    : Long.MAX_VALUE;
+            this.regionOf = new int[r.n];
+            this.localIndex = new int[r.n];
+            this.label = new int[r.n];
+
+            int[] order = bfsOrder(r);
+            this.regions = new Region[(r.n + regionSize - 1) / regionSize];
+            for (int i = 0; i < regions.length; i++) {
+                int from = i * regionSize;
+                int[] vertices = Arrays.copyOfRange(order, from, Math.min(r.n, from + regionSize));
+                for (int k = 0; k < vertices.length; k++) {
+                    regionOf[vertices[k]] = i;
+                    localIndex[vertices[k]] = k;
+                }
+                regions[i] = new Region(vertices);
+            }
+        }
+
+        /**
+         * Phase 1: compute a maximum preflow.
+         */
+        void execute() {
+            long start = System.nanoTime();
+
+            PreflowPushAlgorithm.initPreflow(r);
+            PreflowPushAlgorithm.globalRelabel(r);
+            metrics.globalRelabels++;
+            for (Region region : regions) {
+                region.load();
+            }
+            loadLabels();
+
+            long mainLoopStart = System.nanoTime();
+            metrics.initNanos = mainLoopStart - start;
+
+            // Phase 1: rounds of region discharge and boundary exchange
+            long relabelsSinceGlobal = 0;
+            ArrayList<Region> busy = new ArrayList<Region>();
+            while (true) {
+                busy.clear();
+                for (Region region : regions) {
+                    if (region.qSize > 0) {
+                        busy.add(region);
+                    }
+                }
+                if (busy.isEmpty()) {
+                    break;
+                }
+
+                if (busy.size() == 1) {
+                    busy.get(0).discharge();
+                }
+                else {
+                    // One hand-off to the pool per round; the workers split the regions
+                    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+                    for (Region region : busy) {
+                        tasks.add(ForkJoinTask.adapt(region::discharge));
+                    }
+                    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+                }
+
+                for (Region region : busy) {
+                    relabelsSinceGlobal += region.relabels - region.reportedRelabels;
+                    region.reportedRelabels = region.relabels;
+                    region.publishLabels();
+                }
+                exchange();
+
+                if (relabelsSinceGlobal >= globalRelabelPeriod) {
+                    for (Region region : regions) {
+                        region.store();
+                    }
+                    PreflowPushAlgorithm.globalRelabel(r);
+                    metrics.globalRelabels++;
+                    relabelsSinceGlobal = 0;
+                    for (Region region : regions) {
+                        region.loadLabels();
+                    }
+                    loadLabels();
+                }
+            }
+
+            for (Region region : regions) {
+                region.store();
+                metrics.saturatingPushes += region.saturatingPushes;
+                metrics.nonsaturatingPushes += region.nonsaturatingPushes;
+                metrics.relabels += region.relabels;
+                metrics.activations += region.activations;
+                metrics.polls += region.polls;
+                metrics.arcScans += region.arcScans;
+            }
+
+            metrics.mainLoopNanos = System.nanoTime() - mainLoopStart;
+        }
+
+        void loadLabels() {
+            System.arraycopy(r.height, 0, label, 0, r.n);
+        }
+
+        /**
+         * Push the excess of the parked vertices across the boundary, region
+         * by region in a fixed order.  The labels are current here.
+         */
+        void exchange() {
+            for (Region region : regions) {
+                for (int i = 0; i < region.numParked; i++) {
+                    int k = region.parked[i];
+                    int v = region.vertex[k];
+                    region.queued[k] = false;
+
+                    for (int l = region.first[k]; l < region.first[k + 1]
+                            && region.excess[k] > 0.0; l++) {
+                        int x = region.head[l];
+                        if (x >= 0) {
+                            continue;
+                        }
+                        int w = -1 - x;
+                        double residual = region.cap[l] - region.flow[l];
+                        if (residual <= 0.0 || label[v] != label[w] + 1) {
+                            continue;
+                        }
+
+                        Region other = regions[regionOf[w]];
+                        int j = localIndex[w];
+                        int back = other.first[j] + r.rev[region.arc[l]] - r.first[w];
+                        double delta;
+                        if (region.excess[k] >= residual) {
+                            // Exactly cap, see ResidualGraph.saturate
+                            delta = residual;
+                            region.flow[l] = region.cap[l];
+                            other.flow[back] = 0.0 - region.cap[l];
+                            region.saturatingPushes++;
+                        }
+                        else {
+                            delta = region.excess[k];
+                            region.flow[l] += delta;
+                            other.flow[back] -= delta;
+                            region.nonsaturatingPushes++;
+                        }
+                        region.excess[k] -= delta;
+                        other.excess[j] += delta;
+                        other.activate(j);
+                    }
+                    region.activate(k);
+                }
+                region.numParked = 0;
+            }
+        }
+
+        /**
+         * One region: its vertices, the arcs leaving them, and a FIFO queue
+         * of its active vertices.  Apart from the snapshot of labels, a
+         * discharge only touches these arrays.
+         */
+        private class Region {
+            final int[] vertex;     // global ID of each local vertex
+            final int[] first;      // arcs of local vertex k: first[k] .. first[k+1]-1
+            final int[] head;       // local head, or -1-w for a vertex w of another region
+            final int[] rev;        // local reverse of an internal arc
+            final int[] arc;        // global ID of each local arc
+            final double[] cap;
+            final double[] flow;
+
+            final int[] height;
+            final double[] excess;
+            final int[] current;
+            final boolean[] blocked;    // an admissible boundary arc was passed
+            final boolean[] queued;     // in the queue or parked
+            final int[] queue;
+            int qHead, qSize;
+            final int[] parked;
+            int numParked;
+            final int[] distance;
+            final int[] bfs;
+            final long[] seeds;
+            final long regionRelabelPeriod;
+
+            long saturatingPushes, nonsaturatingPushes;
+            long relabels, reportedRelabels, relabelsAtRegionRelabel;
+            long activations, polls, arcScans;
+
+            Region(int[] vertex) {
+                int size = vertex.length;
+                this.vertex = vertex;
+                this.first = new int[size + 1];
+                for (int k = 0; k < size; k++) {
+                    int v = vertex[k];
+                    first[k + 1] = first[k] + r.first[v + 1] - r.first[v];
+                }
+                int arcs = first[size];
+                this.head = new int[arcs];
+                this.rev = new int[arcs];
+                this.arc = new int[arcs];
+                this.cap = new double[arcs];
+                this.flow = new double[arcs];
+                this.height = new int[size];
+                this.excess = new double[size];
+                this.current = new int[size];
+                this.blocked = new boolean[size];
+                this.queued = new boolean[size];
+                this.queue = new int[size];
+                this.parked = new int[size];
+                this.distance = new int[size];
+                this.bfs = new int[size];
+                this.seeds = new long[size];
+                this.regionRelabelPeriod = options.isGlobalRelabeling()
+                        ? (long) Math.ceil(options.getGlobalRelabelFrequency() * size)
+                        : Long.MAX_VALUE;
+            }
+
+            /**
+             * Copy the arcs, flows, excesses and heights in from the graph
+             * and queue the active vertices.  The region table must be
+             * complete.
+             */
+            void load() {
+                int me = regionOf[vertex[0]];
+                for (int k = 0; k < vertex.length; k++) {
+                    int v = vertex[k];
+                    for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                        int l = first[k] + a - r.first[v];
+                        int w = r.head[a];
+                        arc[l] = a;
+                        cap[l] = r.cap[a];
+                        flow[l] = r.flow[a];
+                        if (regionOf[w] == me) {
+                            head[l] = localIndex[w];
+                            rev[l] = first[localIndex[w]] + r.rev[a] - r.first[w];
+                        }
+                        else {
+                            head[l] = -1 - w;
+                            rev[l] = -1;
+                        }
+                    }
+                    excess[k] = r.excess[v];
+                }
+                loadLabels();
+            }
+
+            /**
+             * Copy the heights in from the graph and queue the active
+             * vertices again.
+             */
+            void loadLabels() {
+                qHead = 0;
+                qSize = 0;
+                numParked = 0;
+                Arrays.fill(queued, false);
+                for (int k = 0; k < vertex.length; k++) {
+                    height[k] = r.height[vertex[k]];
+                    activate(k);
+                }
+            }
+
+            /**
+             * Copy the flows, excesses and heights back to the graph.
+             */
+            void store() {
+                for (int l = 0; l < arc.length; l++) {
+                    r.flow[arc[l]] = flow[l];
+                }
+                for (int k = 0; k < vertex.length; k++) {
+                    r.excess[vertex[k]] = excess[k];
+                    r.height[vertex[k]] = height[k];
+                }
+            }
+
+            void publishLabels() {
+                for (int k = 0; k < vertex.length; k++) {
+                    label[vertex[k]] = height[k];
+                }
+            }
+
+            /**
+             * Queue k if it has excess, can still reach t and is not queued
+             * or parked.  Its scan starts over.
+             */
+            void activate(int k) {
+                int v = vertex[k];
+                if (!queued[k] && excess[k] > 0.0 && height[k] < r.n
+                        && v != r.source && v != r.sink) {
+                    queued[k] = true;
+                    current[k] = first[k];
+                    blocked[k] = false;
+                    queue[(qHead + qSize) % queue.length] = k;
+                    qSize++;
+                    activations++;
+                }
+            }
+
+            /**
+             * Discharge the active vertices until each has no excess, can no
+             * longer reach t, or is parked at the boundary.
+             */
+            void discharge() {
+                while (qSize > 0) {
+                    if (relabels - relabelsAtRegionRelabel >= regionRelabelPeriod) {
+                        regionRelabel();
+                        relabelsAtRegionRelabel = relabels;
+                    }
+                    int k = queue[qHead];
+                    qHead = (qHead + 1) % queue.length;
+                    qSize--;
+                    polls++;
+                    if (dischargeVertex(k)) {
+                        parked[numParked++] = k;
+                    }
+                    else {
+                        queued[k] = false;
+                    }
+                }
+            }
+
+            /**
+             * Push and relabel k over internal arcs.  Returns whether k is
+             * parked: it still has excess, and an admissible boundary arc
+             * is the only way out.
+             */
+            boolean dischargeVertex(int k) {
+                int n = r.n;
+                int last = first[k + 1];
+                while (excess[k] > 0.0 && height[k] < n) {
+                    if (current[k] == last) {
+                        if (blocked[k]) {
+                            return true;
+                        }
+                        relabel(k);
+                        continue;
+                    }
+
+                    int l = current[k];
+                    double residual = cap[l] - flow[l];
+                    arcScans++;
+                    if (residual > 0.0) {
+                        int x = head[l];
+                        if (x >= 0) {
+                            if (height[k] == height[x] + 1) {
+                                boolean saturating = (excess[k] >= residual);
+                                double delta = saturating ? residual : excess[k];
+                                if (saturating) {
+                                    // Exactly cap, see ResidualGraph.saturate
+                                    flow[l] = cap[l];
+                                    flow[rev[l]] = 0.0 - cap[l];
+                                }
+                                else {
+                                    flow[l] += delta;
+                                    flow[rev[l]] -= delta;
+                                }
+                                excess[k] -= delta;
+                                excess[x] += delta;
+                                activate(x);
+                                if (saturating) {
+                                    saturatingPushes++;
+                                }
+                                else {
+                                    nonsaturatingPushes++;
+                                    continue;
+                                }
+                            }
+                        }
+                        else if (height[k] == label[-1 - x] + 1) {
+                            blocked[k] = true;
+                        }
+                    }
+                    current[k]++;
+                }
+                return false;
+            }
+
+            /**
+             * Region relabel: set the heights to the distances within the
+             * region, where a vertex with a residual boundary arc to w may
+             * also leave at label(w)+1.  A backward BFS over the residual
+             * internal arcs starts from these vertices, taken in order of
+             * their distance.  The heights only grow: a valid height is at
+             * most this distance.  Vertices that reach no way out get at
+             * least n.
+             */
+            void regionRelabel() {
+                int n = r.n;
+                int numSeeds = 0;
+                for (int k = 0; k < vertex.length; k++) {
+                    distance[k] = -1;
+                    int v = vertex[k];
+                    int way = Integer.MAX_VALUE;
+                    if (v == r.sink || v == r.source) {
+                        way = height[k];
+                    }
+                    else {
+                        for (int l = first[k]; l < first[k + 1]; l++) {
+                            if (head[l] < 0 && cap[l] - flow[l] > 0.0) {
+                                way = Math.min(way, label[-1 - head[l]] + 1);
+                            }
+                        }
+                    }
+                    if (way != Integer.MAX_VALUE) {
+                        seeds[numSeeds++] = ((long) way << 32) | k;
+                    }
+                }
+                Arrays.sort(seeds, 0, numSeeds);
+
+                // Seeds join the BFS queue when its front reaches their distance
+                int qHead = 0, qTail = 0, next = 0;
+                while (qHead < qTail || next < numSeeds) {
+                    int k;
+                    if (next < numSeeds && (qHead == qTail
+                            || (int) (seeds[next] >>> 32) <= distance[bfs[qHead]])) {
+                        k = (int) seeds[next];
+                        int way = (int) (seeds[next++] >>> 32);
+                        if (distance[k] != -1) {
+                            continue;
+                        }
+                        distance[k] = way;
+                    }
+                    else {
+                        k = bfs[qHead++];
+                    }
+                    for (int l = first[k]; l < first[k + 1]; l++) {
+                        int y = head[l];
+                        if (y >= 0 && distance[y] == -1 && cap[rev[l]] - flow[rev[l]] > 0.0
+                                && vertex[y] != r.source && vertex[y] != r.sink) {
+                            distance[y] = distance[k] + 1;
+                            bfs[qTail++] = y;
+                        }
+                    }
+                }
+
+                for (int k = 0; k < vertex.length; k++) {
+                    int v = vertex[k];
+                    if (v != r.source && v != r.sink) {
+                        int h = (distance[k] == -1) ? n : distance[k];
+                        if (h > height[k]) {
+                            height[k] = h;
+                            relabels++;
+                        }
+                    }
+                    current[k] = first[k];
+                    blocked[k] = false;
+                }
+            }
+
+            /**
+             * Lift k to one more than its lowest residual neighbour; the
+             * heights of other regions come from the snapshot.
+             */
+            void relabel(int k) {
+                int minHeight = 2 * r.n - 1;
+                for (int l = first[k]; l < first[k + 1]; l++) {
+                    if (cap[l] - flow[l] > 0.0) {
+                        int x = head[l];
+                        int h = (x >= 0) ? height[x] : label[-1 - x];
+                        if (h < minHeight) {
+                            minHeight = h;
+                        }
+                    }
+                }
+                height[k] = minHeight + 1;
+                current[k] = first[k];
+                blocked[k] = false;
+                relabels++;
+            }
+        }
+    }
+}
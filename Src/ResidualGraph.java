@@ -0,0 +1,243 @@
+import java.util.*;
+
+/**
+ * A residual graph stored in compressed sparse row (CSR) form.
+ *
+ * Vertices are numbered 0 .. n-1.  The arcs leaving vertex v occupy the
+ * positions first[v] .. first[v+1]-1 of the arc arrays, and head[a] is the
+ * vertex arc a points to.  Every edge (v, w) of the input contributes a
+ * forward arc v->w whose capacity is the edge capacity and a backward arc
+ * w->v of capacity 0; rev[a] is the index of the partner of arc a.
+ * Flow is kept skew-symmetric, i.e. flow[rev[a]] == -flow[a], so the
+ * residual capacity of any arc is simply cap[a] - flow[a].
+ *
+ * The graph is built once, either from a SimpleGraph or straight from
+ * the edge arrays produced by a loader, and the solver works on the
+ * primitive arrays only.
+ */
+public class ResidualGraph {
+
+    int n;              // number of vertices
+    int m;              // number of arcs (twice the number of edges)
+
+    int[] first;        // arcs of v are first[v] .. first[v+1]-1
+    int[] head;         // target vertex of each arc
+    int[] rev;          // index of the reverse arc
+    double[] cap;       // capacity of each arc (0 for backward arcs)
+    double[] flow;      // flow on each arc, skew-symmetric
+
+    int[] arcOfEdge;    // forward arc of the k-th input edge
+
+    int source;
+    int sink;
+
+    Object[] names;     // vertex names, indexed by vertex ID
+    Vertex[] vertices;  // original vertices, or null if built from a loader
+    Edge[] edges;       // original edges, or null if built from a loader
+
+    // Params for Preflow-Push
+    int[] height;
+    double[] excess;
+    int[] current;      // current arc of each vertex, first[v] .. first[v+1]
+
+    /**
+     * Build a residual graph from an edge list.
+     * @param n  the number of vertices
+     * @param numEdges  the number of edges
+     * @param tail  first endpoint of each edge
+     * @param head  second endpoint of each edge
+     * @param capacity  capacity of each edge
+     * @param names  a name for each vertex
+     * @param source  ID of the source vertex
+     * @param sink  ID of the sink vertex
+     */
+    public ResidualGraph(int n, int numEdges, int[] tail, int[] head,
+            double[] capacity, Object[] names, int source, int sink) {
+        this.n = n;
+        this.m = 2 * numEdges;
+        this.names = names;
+        this.source = source;
+        this.sink = sink;
+
+        this.first = new int[n + 1];
+        this.head = new int[m];
+        this.rev = new int[m];
+        this.cap = new double[m];
+        this.flow = new double[m];
+        this.arcOfEdge = new int[numEdges];
+
+        // Count the out-degree of every vertex in the residual graph
+        for (int k = 0; k < numEdges; k++) {
+            first[tail[k] + 1]++;
+            first[head[k] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            first[v + 1] += first[v];
+        }
+
+        // Place a forward and a backward arc for every edge
+        int[] next = Arrays.copyOf(first, n);
+        for (int k = 0; k < numEdges; k++) {
+            int v = tail[k];
+            int w = head[k];
+            int a = next[v]++;
+            int b = next[w]++;
+
+            this.head[a] = w;
+            this.head[b] = v;
+            this.rev[a] = b;
+            this.rev[b] = a;
+            this.cap[a] = capacity[k];
+            this.cap[b] = 0.0;
+            this.arcOfEdge[k] = a;
+        }
+
+        this.height = new int[n];
+        this.excess = new double[n];
+        this.current = new int[n];
+    }
+
+    /**
+     * Build a residual graph from a SimpleGraph.  Vertices receive IDs
+     * in the order of the vertex list, edges keep the order of the edge list.
+     * @param g  a simple graph whose edge data are capacities (Doubles)
+     * @param s  the source vertex
+     * @param t  the sink vertex
+     * @returns  the residual graph of g
+     */
+    public static ResidualGraph fromSimpleGraph(SimpleGraph g, Vertex s, Vertex t) {
+        int n = g.numVertices();
+        int numEdges = g.numEdges();
+        IdentityHashMap<Vertex, Integer> ids = new IdentityHashMap<Vertex, Integer>(2 * n);
+        Vertex[] vertices = new Vertex[n];
+        Object[] names = new Object[n];
+
+        int id = 0;
+        for (Iterator<?> i = g.vertices(); i.hasNext(); id++) {
+            Vertex v = (Vertex) i.next();
+            vertices[id] = v;
+            names[id] = v.getName();
+            ids.put(v, id);
+        }
+
+        Edge[] edges = new Edge[numEdges];
+        int[] tail = new int[numEdges];
+        int[] head = new int[numEdges];
+        double[] capacity = new double[numEdges];
+
+        int k = 0;
+        for (Iterator<?> i = g.edges(); i.hasNext(); k++) {
+            Edge e = (Edge) i.next();
+            edges[k] = e;
+            tail[k] = ids.get(e.getFirstEndpoint());
+            head[k] = ids.get(e.getSecondEndpoint());
+            capacity[k] = (Double) e.getData();
+        }
+
+        ResidualGraph r = new ResidualGraph(n, numEdges, tail, head, capacity,
+                names, ids.get(s), ids.get(t));
+        r.vertices = vertices;
+        r.edges = edges;
+        return r;
+    }
+
+    /**
+     * Return the number of vertices in this graph.
+     * @returns  the number of vertices
+     */
+    public int numVertices() {
+        return n;
+    }
+
+    /**
+     * Return the number of arcs in this graph.
+     * @returns  the number of arcs, twice the number of edges
+     */
+    public int numArcs() {
+        return m;
+    }
+
+    /**
+     * Return the ID of the source vertex.
+     * @returns  the source vertex
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Return the ID of the sink vertex.
+     * @returns  the sink vertex
+     */
+    public int getSink() {
+        return sink;
+    }
+
+    /**
+     * Choose the source and the sink.
+     * @param source  ID of the new source vertex
+     * @param sink  ID of the new sink vertex
+     */
+    public void setTerminals(int source, int sink) {
+        if (source < 0 || source >= n || sink < 0 || sink >= n) {
+            throw new IllegalArgumentException("no such vertex");
+        }
+        if (source == sink) {
+            throw new IllegalArgumentException("source and sink are the same vertex");
+        }
+        this.source = source;
+        this.sink = sink;
+    }
+
+    /**
+     * Return the name of a vertex.
+     * @param v  a vertex ID
+     * @returns  the name of v
+     */
+    public Object getName(int v) {
+        return names[v];
+    }
+
+    /**
+     * Return the residual capacity of an arc.
+     * @param a  an arc
+     * @returns  the amount of flow that can still be pushed along a
+     */
+    public double residual(int a) {
+        return cap[a] - flow[a];
+    }
+
+    /**
+     * Fill an arc up to its capacity, or clamp its flow down to it.  The
+     * flow is set to exactly cap[a]: adding the residual capacity instead
+     * can miss it by a rounding error and leave a tiny residual arc, which
+     * the minimum cut would then cross.  Excesses are left to the caller.
+     * @param a  an arc
+     * @returns  the change of flow on a
+     */
+    double saturate(int a) {
+        double delta = cap[a] - flow[a];
+        flow[a] = cap[a];
+        flow[rev[a]] = 0.0 - cap[a];    // not -cap[a], which is -0.0 for 0
+        return delta;
+    }
+
+    /**
+     * Copy the flow, heights and excesses back into the Edge and Vertex
+     * objects this graph was built from.  Does nothing for graphs that were
+     * built straight from a loader.
+     */
+    public void writeBack() {
+        if (edges != null) {
+            for (int k = 0; k < edges.length; k++) {
+                edges[k].setFlow(flow[arcOfEdge[k]]);
+            }
+        }
+        if (vertices != null) {
+            for (int v = 0; v < n; v++) {
+                vertices[v].setHeight(height[v]);
+                vertices[v].setExcess(excess[v]);
+            }
+        }
+    }
+}
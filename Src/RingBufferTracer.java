@@ -0,0 +1,138 @@
+import java.io.*;
+
+/**
+ * A tracer that records the most recent events in a fixed-size binary
+ * ring buffer, for post-mortem analysis of a run.
+ *
+ * Every event is one record of a type code, two ints and a double, kept in
+ * parallel primitive arrays; recording never allocates, and once the
+ * buffer is full each new record overwrites the oldest one.  writeTo dumps
+ * the records, oldest first, as big-endian binary: the record count
+ * followed by (byte type, int a, int b, double x) per record.  begin clears
+ * the buffer.
+ */
+public class RingBufferTracer implements PreflowTracer {
+
+    public static final byte BEGIN = 0;          // a = n, b = m
+    public static final byte PHASE = 1;          // a = phase
+    public static final byte POLL = 2;           // a = v
+    public static final byte PUSH = 3;           // a = v, b = arc, x = delta
+    public static final byte SATURATING_PUSH = 4;// a = v, b = arc, x = delta
+    public static final byte RELABEL = 5;        // a = v, b = height
+    public static final byte ACTIVATE = 6;       // a = v, b = height, x = excess
+    public static final byte GAP = 7;            // a = height, b = lifted
+    public static final byte GLOBAL_RELABEL = 8;
+    public static final byte END = 9;            // x = flow value
+
+    private byte[] type;
+    private int[] a;
+    private int[] b;
+    private double[] x;
+    private int mask;
+    private long recorded;     // total number of records ever written
+
+    /**
+     * Create a recorder keeping the last capacity events.
+     * @param capacity  the number of records kept, rounded up to a power of two
+     */
+    public RingBufferTracer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.type = new byte[size];
+        this.a = new int[size];
+        this.b = new int[size];
+        this.x = new double[size];
+        this.mask = size - 1;
+        this.recorded = 0;
+    }
+
+    private void record(byte t, int p, int q, double y) {
+        int i = (int) (recorded & mask);
+        type[i] = t;
+        a[i] = p;
+        b[i] = q;
+        x[i] = y;
+        recorded++;
+    }
+
+    /**
+     * Return the number of records currently held.
+     * @returns  the number of records
+     */
+    public int size() {
+        return (int) Math.min(recorded, mask + 1);
+    }
+
+    /**
+     * Return the total number of events seen, including overwritten ones.
+     * @returns  the number of events
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Write the records held, oldest first.
+     * @param out  the stream to write to
+     * @throws IOException  if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        int count = size();
+
+        data.writeInt(count);
+        for (long k = recorded - count; k < recorded; k++) {
+            int i = (int) (k & mask);
+            data.writeByte(type[i]);
+            data.writeInt(a[i]);
+            data.writeInt(b[i]);
+            data.writeDouble(x[i]);
+        }
+        data.flush();
+    }
+
+    @Override
+    public void begin(ResidualGraph r) {
+        recorded = 0;
+        record(BEGIN, r.n, r.m, 0.0);
+    }
+
+    @Override
+    public void phase(int phase) {
+        record(PHASE, phase, 0, 0.0);
+    }
+
+    @Override
+    public void poll(int v) {
+        record(POLL, v, 0, 0.0);
+    }
+
+    @Override
+    public void push(int v, int arc, double delta, boolean saturating) {
+        record(saturating ? SATURATING_PUSH : PUSH, v, arc, delta);
+    }
+
+    @Override
+    public void relabel(int v, int height) {
+        record(RELABEL, v, height, 0.0);
+    }
+
+    @Override
+    public void activate(int v, double excess, int height) {
+        record(ACTIVATE, v, height, excess);
+    }
+
+    @Override
+    public void gap(int height, int lifted) {
+        record(GAP, height, lifted, 0.0);
+    }
+
+    @Override
+    public void globalRelabel() {
+        record(GLOBAL_RELABEL, 0, 0, 0.0);
+    }
+
+    @Override
+    public void end(double flowValue) {
+        record(END, 0, 0, flowValue);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * A tracer that forwards only every k-th poll, push, relabel and
+ * activation to another tracer.  The rarer events (phases, gaps, global
+ * relabels, begin and end) are always forwarded.
+ */
+public class SamplingTracer implements PreflowTracer {
+
+    private PreflowTracer target;
+    private long period;
+    private long count;
+
+    /**
+     * Create a sampling tracer.
+     * @param target  the tracer receiving the sampled events
+     * @param period  forward one of every period frequent events
+     */
+    public SamplingTracer(PreflowTracer target, long period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("sampling period must be positive");
+        }
+        this.target = target;
+        this.period = period;
+        this.count = 0;
+    }
+
+    // Whether the current frequent event is sampled
+    private boolean sample() {
+        count++;
+        if (count == period) {
+            count = 0;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void begin(ResidualGraph r) {
+        count = 0;
+        target.begin(r);
+    }
+
+    @Override
+    public void phase(int phase) {
+        target.phase(phase);
+    }
+
+    @Override
+    public void poll(int v) {
+        if (sample()) {
+            target.poll(v);
+        }
+    }
+
+    @Override
+    public void push(int v, int a, double delta, boolean saturating) {
+        if (sample()) {
+            target.push(v, a, delta, saturating);
+        }
+    }
+
+    @Override
+    public void relabel(int v, int height) {
+        if (sample()) {
+            target.relabel(v, height);
+        }
+    }
+
+    @Override
+    public void activate(int v, double excess, int height) {
+        if (sample()) {
+            target.activate(v, excess, height);
+        }
+    }
+
+    @Override
+    public void gap(int height, int lifted) {
+        target.gap(height, lifted);
+    }
+
+    @Override
+    public void globalRelabel() {
+        target.globalRelabel();
+    }
+
+    @Override
+    public void end(double flowValue) {
+        target.end(flowValue);
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * The active-vertex selection rules available to the Preflow-Push
+ * algorithm, see PreflowPushOptions.setSelectionRule.
+ */
+public enum SelectionRule {
+    /** first in, first out: O(n^3) */
+    FIFO,
+
+    /** highest label first, using height buckets: O(n^2 sqrt(m)) */
+    HIGHEST_LABEL,
+
+    /** lowest label first, using height buckets: O(n^2 m) */
+    LOWEST_LABEL,
+
+    /** waves over a list of the active vertices, relabeled ones moved to the front: O(n^2 m) */
+    WAVE,
+
+    /** pick one of the above from simple statistics of the graph */
+    AUTOMATIC
+}
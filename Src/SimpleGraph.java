@@ -88,6 +88,11 @@ public class SimpleGraph {
         edgeList.addLast(e);
         v.incidentEdgeList.addLast(e);
         w.incidentEdgeList.addLast(e);
+        
+        // Keep the first of several parallel edges in the index
+        if (!v.outEdgeIndex.containsKey(w)) {
+            v.outEdgeIndex.put(w, e);
+        }
         return e;
     }
 
@@ -114,29 +119,34 @@ public class SimpleGraph {
         return w;
     }
     
-    // Return the edge of two given vertices
+    /**
+     * Return the edge joining two given vertices in constant time.
+     * If there is an edge from v to w it is returned; otherwise an edge
+     * from w to v is returned.  Among parallel edges the one inserted first
+     * is returned.
+     * @param v  a vertex
+     * @param w  a vertex
+     * @returns  the edge joining v and w (or null, if there is none)
+     */
     public Edge findEdge(Vertex v, Vertex w) {
-        Edge e;
+        Edge e = v.outEdgeIndex.get(w);
         
-        for (int i=0; i<v.incidentEdgeList.size(); i++) {
-        	if (w.incidentEdgeList.contains(v.incidentEdgeList.get(i))) {
-        		e = (Edge) v.incidentEdgeList.get(i);
-        		return e;
-        	}
+        if (e == null) {
+            e = w.outEdgeIndex.get(v);
         }
         
-        return null;
+        return e;
     }
     
-    // Return the result  for whether the edge (v, w) is forward or backward
+    /**
+     * Return whether the edge returned by findEdge(v, w) is a forward edge,
+     * i.e. whether there is an edge from v to w.  Runs in constant time.
+     * @param v  a vertex
+     * @param w  a vertex
+     * @returns  true if an edge from v to w exists, false otherwise
+     */
     public boolean direction(Vertex v, Vertex w) {
-    	Edge e = this.findEdge(v, w);
-    	
-    	if (e.getFirstEndpoint().equals(v) && e.getSecondEndpoint().equals(w)) {
-    		return true;
-    	}else {
-    		return false;
-    	}
+        return v.outEdgeIndex.containsKey(w);
     }
     
     /**
@@ -214,6 +224,13 @@ public class SimpleGraph {
         System.out.println("opposite(c,x) is " + G.opposite(c,x));
         System.out.println("opposite(c,y) is " + G.opposite(c,y));
 
+        System.out.println("Testing findEdge...");
+        System.out.println("findEdge(a,b) is " + G.findEdge(a,b).getName());
+        System.out.println("findEdge(b,a) is " + G.findEdge(b,a).getName());
+        System.out.println("findEdge(a,c) is " + G.findEdge(a,c));
+        System.out.println("direction(a,b) is " + G.direction(a,b));
+        System.out.println("direction(b,a) is " + G.direction(b,a));
+
     }
 }
 
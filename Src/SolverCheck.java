@@ -0,0 +1,296 @@
+import java.io.File;
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A self-check of the max-flow solvers against DinicSolver, meant to catch
+ * regressions in the parallel solvers.
+ *
+ * Every graph in a directory and a series of random graphs are solved by
+ * each solver at several thread counts.  A result must have the flow value
+ * of DinicSolver and a cut of the same capacity that separates s from t,
+ * and its flow must respect the capacities, be skew symmetric and be
+ * conserved at every vertex other than s and t.  Solvers that promise a
+ * deterministic result must leave the same flow when run twice.
+ *
+ * Each graph is also swept by ParametricMaxFlow over values of lambda that
+ * scale the edges out of s up and the edges into t down.  The flow value
+ * and cut capacity for each value must match a fresh PreflowPushSolver
+ * solve, and the cuts must separate s from t and be nested.
+ *
+ * Values are compared up to a relative difference of EPSILON: the parallel
+ * solvers add up flow in an order that depends on thread scheduling, and
+ * a parametric sweep adds up flow over several solves.
+ *
+ * Usage: java SolverCheck [directory [count [seed]]].  The defaults are the
+ * Graph directory, 1000 random graphs and seed 1.  The exit status is 1 if
+ * any check fails.
+ */
+public class SolverCheck {
+
+    private static final int[] THREADS = {1, 2, 4, 8};
+    private static final double EPSILON = 1e-9;
+
+    private int checks;
+    private int failures;
+
+    /**
+     * Return the solvers to check, with a given number of threads.
+     * @param options  the options of the solvers
+     * @param threads  the number of worker threads
+     * @param random  the source of randomized solver parameters
+     * @returns  the solvers
+     */
+    private static List<MaxFlowSolver> solvers(PreflowPushOptions options, int threads,
+            Random random) {
+        List<MaxFlowSolver> solvers = new ArrayList<MaxFlowSolver>();
+        solvers.add(new ParallelPushRelabelSolver(options, threads));
+        solvers.add(new SynchronousPushRelabelSolver(options, threads));
+        solvers.add(new RegionPushRelabelSolver(options, threads, 1 + random.nextInt(64)));
+        return solvers;
+    }
+
+    /**
+     * Return whether a solver's flow does not depend on thread scheduling.
+     */
+    private static boolean isDeterministic(MaxFlowSolver solver) {
+        return solver instanceof SynchronousPushRelabelSolver
+                || solver instanceof RegionPushRelabelSolver;
+    }
+
+    /**
+     * Solve a graph with every solver and thread count and compare the
+     * results with DinicSolver.
+     */
+    private void check(String name, ResidualGraph r, PreflowPushOptions options, Random random) {
+        double expected = new DinicSolver().solve(r, r.source, r.sink).getFlowValue();
+
+        for (int threads : THREADS) {
+            for (MaxFlowSolver solver : solvers(options, threads, random)) {
+                checks++;
+                String error;
+                try {
+                    error = verify(r, solver.solve(r, r.source, r.sink), expected);
+                    if (error == null && isDeterministic(solver)) {
+                        double[] flow = r.flow.clone();
+                        solver.solve(r, r.source, r.sink);
+                        if (!Arrays.equals(flow, r.flow)) {
+                            error = "different flow when solved again";
+                        }
+                    }
+                }
+                catch (RuntimeException e) {
+                    error = e.toString();
+                }
+                if (error != null) {
+                    failures++;
+                    System.out.println(name + ": " + solver.getClass().getSimpleName()
+                            + " with " + threads + " threads: " + error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sweep a graph with ParametricMaxFlow and compare every value of
+     * lambda with a fresh solve of the graph with those capacities.
+     */
+    private void checkParametric(String name, ResidualGraph r, PreflowPushOptions options,
+            Random random) {
+        int numEdges = r.arcOfEdge.length;
+        double[] base = new double[numEdges];
+        DoubleUnaryOperator[] capacity = new DoubleUnaryOperator[numEdges];
+        ParametricMaxFlow parametric = new ParametricMaxFlow(r, options);
+        boolean sinkEdges = random.nextBoolean();
+
+        for (int k = 0; k < numEdges; k++) {
+            int a = r.arcOfEdge[k];
+            double c = r.cap[a];
+            base[k] = c;
+            if (r.head[r.rev[a]] == r.source) {
+                capacity[k] = lambda -> lambda * c;
+                parametric.setSourceCapacity(k, capacity[k]);
+            }
+            else if (r.head[a] == r.sink && sinkEdges) {
+                capacity[k] = lambda -> c * Math.max(0.0, 1.0 - lambda / 3.0);
+                parametric.setSinkCapacity(k, capacity[k]);
+            }
+        }
+
+        // Multiples of 0.1, which are not exact in binary
+        double[] lambdas = new double[1 + random.nextInt(8)];
+        for (int i = 0; i < lambdas.length; i++) {
+            lambdas[i] = 0.1 * random.nextInt(30);
+        }
+        Arrays.sort(lambdas);
+
+        MaxFlowResult[] results = parametric.solve(lambdas);
+        BitSet previous = null;
+        for (int i = 0; i < lambdas.length; i++) {
+            double[] c = base.clone();
+            for (int k = 0; k < numEdges; k++) {
+                if (capacity[k] != null) {
+                    c[k] = capacity[k].applyAsDouble(lambdas[i]);
+                }
+            }
+            ResidualGraph fresh = rebuild(r, c);
+            double expected = new PreflowPushSolver().solve(fresh, r.source, r.sink).getFlowValue();
+
+            checks++;
+            MaxFlowResult result = results[i];
+            BitSet sourceSide = result.getSourceSide();
+            String error = null;
+            if (!close(result.getFlowValue(), expected)) {
+                error = "flow value " + result.getFlowValue() + ", expected " + expected;
+            }
+            else if (!close(result.getCutCapacity(), expected)) {
+                error = "cut capacity " + result.getCutCapacity() + ", expected " + expected;
+            }
+            else if (!sourceSide.get(r.source) || sourceSide.get(r.sink)) {
+                error = "cut does not separate s and t";
+            }
+            else if (previous != null) {
+                BitSet lost = (BitSet) previous.clone();
+                lost.andNot(sourceSide);
+                if (!lost.isEmpty()) {
+                    error = "cut is not nested in the next one";
+                }
+            }
+            if (error != null) {
+                failures++;
+                System.out.println(name + ": ParametricMaxFlow at lambda " + lambdas[i] + ": "
+                        + error);
+            }
+            previous = sourceSide;
+        }
+    }
+
+    /**
+     * Return whether a value equals the expected one up to rounding.
+     */
+    private static boolean close(double value, double expected) {
+        return Math.abs(value - expected) <= EPSILON * Math.max(1.0, Math.abs(expected));
+    }
+
+    /**
+     * Build a graph with the vertices and edges of r and new capacities.
+     */
+    private static ResidualGraph rebuild(ResidualGraph r, double[] capacity) {
+        int numEdges = r.arcOfEdge.length;
+        int[] tail = new int[numEdges];
+        int[] head = new int[numEdges];
+        for (int k = 0; k < numEdges; k++) {
+            int a = r.arcOfEdge[k];
+            tail[k] = r.head[r.rev[a]];
+            head[k] = r.head[a];
+        }
+        return new ResidualGraph(r.n, numEdges, tail, head, capacity, r.names, r.source, r.sink);
+    }
+
+    /**
+     * Check a result and the flow it left in the graph.
+     * @returns  a description of the first problem found, or null
+     */
+    private static String verify(ResidualGraph r, MaxFlowResult result, double expected) {
+        if (!close(result.getFlowValue(), expected)) {
+            return "flow value " + result.getFlowValue() + ", expected " + expected;
+        }
+        if (!close(result.getCutCapacity(), expected)) {
+            return "cut capacity " + result.getCutCapacity() + ", expected " + expected;
+        }
+        BitSet sourceSide = result.getSourceSide();
+        if (!sourceSide.get(r.source) || sourceSide.get(r.sink)) {
+            return "cut does not separate s and t";
+        }
+
+        for (int v = 0; v < r.n; v++) {
+            double net = 0.0;
+            for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                if (r.flow[a] > r.cap[a] && !close(r.flow[a], r.cap[a])) {
+                    return "flow over capacity on an arc out of " + r.names[v];
+                }
+                if (!close(r.flow[a], 0.0 - r.flow[r.rev[a]])) {
+                    return "flow not skew symmetric on an arc out of " + r.names[v];
+                }
+                net += r.flow[a];
+            }
+            if (v != r.source && v != r.sink && !close(net, 0.0)) {
+                return "flow not conserved at " + r.names[v];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build a random graph with small capacities, some of them 0.  Half
+     * the graphs have integer capacities, the others multiples of 0.1 or
+     * of 1/3, which are not exact in binary.  Every tenth graph or so is
+     * larger.
+     */
+    private static ResidualGraph randomGraph(Random random) {
+        int n = 2 + random.nextInt(random.nextInt(10) == 0 ? 400 : 40);
+        int numEdges = random.nextInt(n * (1 + random.nextInt(6)) + 1);
+        int[] tail = new int[numEdges];
+        int[] head = new int[numEdges];
+        double[] capacity = new double[numEdges];
+        Object[] names = new Object[n];
+        double unit = random.nextBoolean() ? 1.0 : random.nextBoolean() ? 0.1 : 1.0 / 3.0;
+
+        for (int k = 0; k < numEdges; k++) {
+            tail[k] = random.nextInt(n);
+            head[k] = random.nextInt(n);
+            if (random.nextInt(3) != 0) {
+                capacity[k] = unit * (1 + random.nextInt(random.nextBoolean() ? 2 : 100));
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            names[v] = "v" + v;
+        }
+        int s = random.nextInt(n);
+        int t = (s + 1 + random.nextInt(n - 1)) % n;
+        return new ResidualGraph(n, numEdges, tail, head, capacity, names, s, t);
+    }
+
+    /**
+     * Run the checks.
+     * @param args  the graph directory, the number of random graphs and the seed
+     */
+    public static void main(String[] args) {
+        File directory = new File(args.length > 0 ? args[0] : "Graph");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        SolverCheck check = new SolverCheck();
+        Random random = new Random(seed);
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null) {
+            System.err.println("Error: cannot read directory " + directory);
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            ResidualGraph r = GraphInput.LoadResidualGraph(file.getPath());
+            if (r == null) {
+                System.err.println("Error: cannot load " + file);
+                System.exit(1);
+            }
+            check.check(file.getName(), r, new PreflowPushOptions(), random);
+            check.checkParametric(file.getName(), r, new PreflowPushOptions(), random);
+        }
+
+        for (int i = 0; i < count; i++) {
+            PreflowPushOptions options = new PreflowPushOptions();
+            if (random.nextBoolean()) {
+                options.setGlobalRelabelFrequency(0.5 * random.nextInt(3));
+            }
+            ResidualGraph r = randomGraph(random);
+            check.check("random graph " + i, r, options, random);
+            check.checkParametric("random graph " + i, r, options, random);
+        }
+
+        System.out.println(check.checks + " checks, " + check.failures + " failures");
+        if (check.failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Operation counts and phase timings of one max-flow run.
+ *
+ * A metrics object belongs to the thread running the solver, so the
+ * counters are plain long fields that the solver increments directly;
+ * they are cheap enough to stay on in production.  Times are in
+ * nanoseconds.
+ */
+public class SolverMetrics {
+
+    long saturatingPushes;
+    long nonsaturatingPushes;
+    long relabels;
+    long gaps;
+    long gapLiftedVertices;
+    long globalRelabels;
+    long activations;          // insertions into the active-vertex structure
+    long polls;
+    long arcScans;             // arcs inspected by current-arc advances and relabels
+
+    long initNanos;
+    long mainLoopNanos;
+    long returnExcessNanos;
+    long resultNanos;
+
+    private static final String[] NAMES = {
+        "saturatingPushes", "nonsaturatingPushes", "relabels", "gaps",
+        "gapLiftedVertices", "globalRelabels", "activations", "polls", "arcScans",
+        "initNanos", "mainLoopNanos", "returnExcessNanos", "resultNanos"
+    };
+
+    /**
+     * Return a copy of these values, which does not change when a solver
+     * goes on counting.
+     * @returns  the copy
+     */
+    public SolverMetrics copy() {
+        SolverMetrics copy = new SolverMetrics();
+        copy.saturatingPushes = saturatingPushes;
+        copy.nonsaturatingPushes = nonsaturatingPushes;
+        copy.relabels = relabels;
+        copy.gaps = gaps;
+        copy.gapLiftedVertices = gapLiftedVertices;
+        copy.globalRelabels = globalRelabels;
+        copy.activations = activations;
+        copy.polls = polls;
+        copy.arcScans = arcScans;
+        copy.initNanos = initNanos;
+        copy.mainLoopNanos = mainLoopNanos;
+        copy.returnExcessNanos = returnExcessNanos;
+        copy.resultNanos = resultNanos;
+        return copy;
+    }
+
+    /**
+     * Return all values in the order of the CSV columns.
+     * @returns  the values
+     */
+    public long[] values() {
+        return new long[] {
+            saturatingPushes, nonsaturatingPushes, relabels, gaps,
+            gapLiftedVertices, globalRelabels, activations, polls, arcScans,
+            initNanos, mainLoopNanos, returnExcessNanos, resultNanos
+        };
+    }
+
+    public long getSaturatingPushes() {
+        return saturatingPushes;
+    }
+
+    public long getNonsaturatingPushes() {
+        return nonsaturatingPushes;
+    }
+
+    public long getPushes() {
+        return saturatingPushes + nonsaturatingPushes;
+    }
+
+    public long getRelabels() {
+        return relabels;
+    }
+
+    public long getGaps() {
+        return gaps;
+    }
+
+    public long getGapLiftedVertices() {
+        return gapLiftedVertices;
+    }
+
+    public long getGlobalRelabels() {
+        return globalRelabels;
+    }
+
+    public long getActivations() {
+        return activations;
+    }
+
+    public long getPolls() {
+        return polls;
+    }
+
+    public long getArcScans() {
+        return arcScans;
+    }
+
+    public long getInitNanos() {
+        return initNanos;
+    }
+
+    public long getMainLoopNanos() {
+        return mainLoopNanos;
+    }
+
+    public long getReturnExcessNanos() {
+        return returnExcessNanos;
+    }
+
+    public long getResultNanos() {
+        return resultNanos;
+    }
+
+    /**
+     * Return the CSV header matching toCsvRow.
+     * @returns  comma-separated column names
+     */
+    public static String csvHeader() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(NAMES[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the values as one CSV line.
+     * @returns  comma-separated values
+     */
+    public String toCsvRow() {
+        long[] values = values();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the values as a flat JSON object.
+     * @returns  a JSON object
+     */
+    public String toJson() {
+        long[] values = values();
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('"').append(NAMES[i]).append("\": ").append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
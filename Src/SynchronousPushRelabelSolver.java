@@ -0,0 +1,322 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A parallel Preflow-Push solver that works in synchronous rounds, so its
+ * result does not depend on thread scheduling.
+ *
+ * Each round takes the active vertices in a fixed order and splits them
+ * into chunks of CHUNK vertices, which are processed on a ForkJoinPool:
+ * <ol>
+ * <li>Push: every active vertex pushes its excess along admissible arcs
+ *     under the labels frozen at the start of the round.  An arc v->w is
+ *     admissible only if h(v) = h(w)+1, so w cannot push along w->v in the
+ *     same round and every arc pair has a single writer.  The excess that
+ *     arrives at w is staged in the buffer of the chunk.</li>
+ * <li>Merge: the chunk buffers are added to the excesses in chunk order,
+ *     which fixes the order of the floating-point sums.</li>
+ * <li>Relabel: every vertex that could not push all its excess computes
+ *     its new label from the frozen labels of its residual neighbours, and
+ *     the new labels are applied together.  Neighbours only move up, so
+ *     the labels stay valid.</li>
+ * </ol>
+ * Global relabels run between rounds.  Only phase 1 runs in parallel;
+ * phase 2 returns the remaining excess to s sequentially.
+ */
+public class SynchronousPushRelabelSolver implements MaxFlowSolver {
+
+    /** number of active vertices per chunk */
+    private static final int CHUNK = 256;
+
+    private PreflowPushOptions options;
+    private int threads;
+
+    /**
+     * Create a solver with the default options and one thread per
+     * available processor.
+     */
+    public SynchronousPushRelabelSolver() {
+        this(new PreflowPushOptions(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a solver.
+     * @param options  the global relabel frequency and min-cut-only setting
+     * @param threads  the number of worker threads
+     */
+    public SynchronousPushRelabelSolver(PreflowPushOptions options, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        this.options = options;
+        this.threads = threads;
+    }
+
+    public MaxFlowResult solve(ResidualGraph graph, int source, int sink) {
+        graph.setTerminals(source, sink);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Rounds run = new Rounds(graph, pool);
+            run.execute();
+            return PreflowPushAlgorithm.finish(graph, options, run.metrics);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The excess pushed by one chunk during a round, and its push counts.
+     */
+    private static class Chunk {
+        int[] target = new int[64];
+        double[] amount = new double[64];
+        int size;
+        long saturatingPushes;
+        long nonsaturatingPushes;
+
+        void stage(int w, double delta) {
+            if (size == target.length) {
+                target = Arrays.copyOf(target, 2 * size);
+                amount = Arrays.copyOf(amount, 2 * size);
+            }
+            target[size] = w;
+            amount[size] = delta;
+            size++;
+        }
+    }
+
+    /**
+     * Runs body(0), ..., body(count-1) on the pool by recursive halving.
+     */
+    private static class ForEachChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int from, to;
+        final IntConsumer body;
+
+        ForEachChunk(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ForEachChunk(from, mid, body), new ForEachChunk(mid, to, body));
+            }
+        }
+    }
+
+    /**
+     * The state of one solve.
+     */
+    private class Rounds {
+        final ResidualGraph r;
+        final ForkJoinPool pool;
+        final long globalRelabelPeriod;
+        final SolverMetrics metrics = new SolverMetrics();
+
+        int[] active;           // active vertices of this round, in a fixed order
+        int numActive;
+        int[] next;             // active vertices of the next round
+        int numNext;
+        int[] queuedIn;         // round a vertex was last added to next for
+        int round;
+
+        final boolean[] stuck;  // kept excess after pushing this round
+        final int[] newHeight;
+        final ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+
+        Rounds(ResidualGraph r, ForkJoinPool pool) {
+            this.r = r;
+            this.pool = pool;
+            this.globalRelabelPeriod = options.isGlobalRelabeling()
+                    ? (long) Math.ceil(options.getGlobalRelabelFrequency() * r.n)
+                    : Long.MAX_VALUE;
+            this.active = new int[r.n];
+            this.next = new int[r.n];
+            this.queuedIn = new int[r.n];
+            this.stuck = new boolean[r.n];
+            this.newHeight = new int[r.n];
+            Arrays.fill(queuedIn, -1);
+        }
+
+        /**
+         * Phase 1: compute a maximum preflow.
+         */
+        void execute() {
+            long start = System.nanoTime();
+
+            PreflowPushAlgorithm.initPreflow(r);
+            PreflowPushAlgorithm.globalRelabel(r);
+            metrics.globalRelabels++;
+            collectActive();
+
+            long mainLoopStart = System.nanoTime();
+            metrics.initNanos = mainLoopStart - start;
+
+            // Phase 1: rounds of push, merge and relabel
+            long relabelsSinceGlobal = 0;
+            while (numActive > 0) {
+                round++;
+                metrics.polls += numActive;
+                int numChunks = (numActive + CHUNK - 1) / CHUNK;
+                while (chunks.size() < numChunks) {
+                    chunks.add(new Chunk());
+                }
+
+                forEachChunk(numChunks, this::pushChunk);
+
+                // Merge the staged excess in chunk order
+                numNext = 0;
+                for (int c = 0; c < numChunks; c++) {
+                    Chunk chunk = chunks.get(c);
+                    for (int i = 0; i < chunk.size; i++) {
+                        int w = chunk.target[i];
+                        r.excess[w] += chunk.amount[i];
+                        enqueue(w);
+                    }
+                    chunk.size = 0;
+                }
+
+                forEachChunk(numChunks, this::relabelChunk);
+
+                // Apply the new labels together
+                for (int i = 0; i < numActive; i++) {
+                    int v = active[i];
+                    if (stuck[v]) {
+                        r.height[v] = newHeight[v];
+                        r.current[v] = r.first[v];
+                        metrics.relabels++;
+                        relabelsSinceGlobal++;
+                        enqueue(v);
+                    }
+                }
+
+                int[] swap = active;
+                active = next;
+                next = swap;
+                numActive = numNext;
+
+                if (relabelsSinceGlobal >= globalRelabelPeriod) {
+                    PreflowPushAlgorithm.globalRelabel(r);
+                    metrics.globalRelabels++;
+                    relabelsSinceGlobal = 0;
+                    collectActive();
+                }
+            }
+
+            for (Chunk chunk : chunks) {
+                metrics.saturatingPushes += chunk.saturatingPushes;
+                metrics.nonsaturatingPushes += chunk.nonsaturatingPushes;
+            }
+
+            metrics.mainLoopNanos = System.nanoTime() - mainLoopStart;
+        }
+
+        void forEachChunk(int numChunks, IntConsumer body) {
+            if (numChunks == 1) {
+                body.accept(0);
+            }
+            else {
+                pool.invoke(new ForEachChunk(0, numChunks, body));
+            }
+        }
+
+        /**
+         * Add v to the next round if it is active and not added yet.
+         */
+        void enqueue(int v) {
+            if (v != r.source && v != r.sink && r.excess[v] > 0.0
+                    && r.height[v] < r.n && queuedIn[v] != round) {
+                queuedIn[v] = round;
+                next[numNext++] = v;
+                metrics.activations++;
+            }
+        }
+
+        /**
+         * Start over from all active vertices, in ID order.
+         */
+        void collectActive() {
+            round++;
+            numNext = 0;
+            for (int v = 0; v < r.n; v++) {
+                enqueue(v);
+            }
+            int[] swap = active;
+            active = next;
+            next = swap;
+            numActive = numNext;
+        }
+
+        /**
+         * Push phase of the vertices of chunk c.
+         */
+        void pushChunk(int c) {
+            Chunk chunk = chunks.get(c);
+            int end = Math.min(numActive, (c + 1) * CHUNK);
+            for (int i = c * CHUNK; i < end; i++) {
+                int v = active[i];
+                double e = r.excess[v];
+                int hv = r.height[v];
+                int last = r.first[v + 1];
+
+                while (e > 0.0 && r.current[v] < last) {
+                    int a = r.current[v];
+                    int w = r.head[a];
+
+                    // Test the label first: only then is a free of other writers
+                    if (hv == r.height[w] + 1 && r.residual(a) > 0.0) {
+                        double delta;
+                        if (e >= r.residual(a)) {
+                            delta = r.saturate(a);
+                            chunk.saturatingPushes++;
+                            r.current[v]++;
+                        }
+                        else {
+                            delta = e;
+                            r.flow[a] += delta;
+                            r.flow[r.rev[a]] -= delta;
+                            chunk.nonsaturatingPushes++;
+                        }
+                        e -= delta;
+                        chunk.stage(w, delta);
+                    }
+                    else {
+                        r.current[v]++;
+                    }
+                }
+                r.excess[v] = e;
+                stuck[v] = (e > 0.0);
+            }
+        }
+
+        /**
+         * Relabel phase of the vertices of chunk c: every stuck vertex gets
+         * one more than its lowest residual neighbour under the frozen labels.
+         */
+        void relabelChunk(int c) {
+            int end = Math.min(numActive, (c + 1) * CHUNK);
+            for (int i = c * CHUNK; i < end; i++) {
+                int v = active[i];
+                if (!stuck[v]) {
+                    continue;
+                }
+                int minHeight = 2 * r.n - 1;
+                for (int a = r.first[v]; a < r.first[v + 1]; a++) {
+                    if (r.residual(a) > 0.0 && r.height[r.head[a]] < minHeight) {
+                        minHeight = r.height[r.head[a]];
+                    }
+                }
+                newHeight[v] = minHeight + 1;
+            }
+        }
+    }
+}
@@ -22,13 +22,13 @@ public class Vertex {
     /** the edge list for this vertex */
     LinkedList incidentEdgeList;
 
+    /** the edges leaving this vertex, keyed by their second endpoint */
+    HashMap<Vertex, Edge> outEdgeIndex;
+
     private Object data;              // an object associated with this vertex
     private Object name;              // a name associated with this vertex
     
     // Params for Preflow-Push
-    LinkedList adjacencyList;
-    Integer current;
-    
     private Double excess;
     private Integer height;
     
@@ -43,12 +43,11 @@ public class Vertex {
         this.data = data;
         this.name = name;
         this.incidentEdgeList = new LinkedList();
+        this.outEdgeIndex = new HashMap<Vertex, Edge>();
         
         // Params for Preflow-Push
         this.excess = 0.0;
         this.height = 0;
-        this.adjacencyList = new LinkedList();
-        this.current = 0;
     }
     
     // Override for Preflow-Push
@@ -56,11 +55,10 @@ public class Vertex {
         this.data = data;
         this.name = name;
         this.incidentEdgeList = new LinkedList();
+        this.outEdgeIndex = new HashMap<Vertex, Edge>();
         
         this.excess = excess;
         this.height = height;
-        this.adjacencyList = new LinkedList();
-        this.current = 0;
     }
     
     /**
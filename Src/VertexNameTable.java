@@ -0,0 +1,190 @@
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Maps vertex names to the IDs 0, 1, 2, ... in order of first appearance.
+ *
+ * Names are looked up straight from the bytes of the input, so no String is
+ * created while loading.  The table uses open addressing with linear
+ * probing and is kept at most half full.  The bytes of every name are
+ * stored once in a shared pool: name i occupies pool[start[i] .. start[i+1]-1].
+ */
+public class VertexNameTable {
+
+    private int[] slots;       // ID stored in each slot, -1 if empty
+    private int[] hashOf;      // hash of each name, by ID
+    private int[] start;       // start of each name in the pool, by ID
+    private byte[] pool;       // bytes of all names, back to back
+    private int size;
+
+    /**
+     * Create an empty table.
+     */
+    public VertexNameTable() {
+        this(16);
+    }
+
+    /**
+     * Create an empty table with room for a number of names.
+     * @param expected  the number of names expected
+     */
+    public VertexNameTable(int expected) {
+        int capacity = 16;
+        while (capacity < 2 * expected) {
+            capacity *= 2;
+        }
+        this.slots = new int[capacity];
+        this.hashOf = new int[capacity / 2];
+        this.start = new int[capacity / 2 + 1];
+        this.pool = new byte[8 * capacity];
+        Arrays.fill(slots, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Return the number of names in the table.
+     * @returns  the number of names
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the ID of a name, adding the name if it is new.
+     * @param buf  a buffer holding the name
+     * @param from  index of the first byte of the name
+     * @param to  index just past the last byte of the name
+     * @returns  the ID of the name
+     */
+    public int intern(ByteBuffer buf, int from, int to) {
+        int hash = hash(buf, from, to);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = slots[slot]) != -1) {
+            if (hashOf[id] == hash && matches(id, buf, from, to)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        id = size++;
+        int length = to - from;
+        int end = start[id] + length;
+        if (end > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(end, 2 * pool.length));
+        }
+        for (int i = 0; i < length; i++) {
+            pool[start[id] + i] = buf.get(from + i);
+        }
+        start[id + 1] = end;
+        hashOf[id] = hash;
+        slots[slot] = id;
+
+        if (2 * size >= slots.length) {
+            grow();
+        }
+        return id;
+    }
+
+    /**
+     * Add all names of another table, in the order of their IDs there.
+     * @param other  a table of names
+     * @returns  the ID in this table of every ID of other
+     */
+    public int[] internAll(VertexNameTable other) {
+        ByteBuffer buf = ByteBuffer.wrap(other.pool);
+        int[] ids = new int[other.size];
+        for (int id = 0; id < other.size; id++) {
+            ids[id] = intern(buf, other.start[id], other.start[id + 1]);
+        }
+        return ids;
+    }
+
+    /**
+     * Return the ID of a name.
+     * @param name  a vertex name
+     * @returns  the ID of name, or -1 if it is not in the table
+     */
+    public int find(String name) {
+        ByteBuffer buf = ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8));
+        int to = buf.limit();
+        int hash = hash(buf, 0, to);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = slots[slot]) != -1) {
+            if (hashOf[id] == hash && matches(id, buf, 0, to)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Return the name of an ID.
+     * @param id  an ID between 0 and size()-1
+     * @returns  the name
+     */
+    public String getName(int id) {
+        return new String(pool, start[id], start[id + 1] - start[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return all names, indexed by ID.
+     * @returns  an array of size() names
+     */
+    public String[] toArray() {
+        String[] names = new String[size];
+        for (int id = 0; id < size; id++) {
+            names[id] = getName(id);
+        }
+        return names;
+    }
+
+    private boolean matches(int id, ByteBuffer buf, int from, int to) {
+        int p = start[id];
+        if (start[id + 1] - p != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++, p++) {
+            if (pool[p] != buf.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double the number of slots and reinsert every ID.
+     */
+    private void grow() {
+        int capacity = 2 * slots.length;
+        int mask = capacity - 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        for (int id = 0; id < size; id++) {
+            int slot = hashOf[id] & mask;
+            while (slots[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+        hashOf = Arrays.copyOf(hashOf, capacity / 2);
+        start = Arrays.copyOf(start, capacity / 2 + 1);
+    }
+
+    /**
+     * FNV-1a over the bytes, with the high bits folded into the low ones
+     * since the slot is taken from the low bits.
+     */
+    private static int hash(ByteBuffer buf, int from, int to) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ buf.get(i)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * The rule by which the Preflow-Push algorithm picks the next active
+ * vertex to discharge.  An implementation stores the set of active
+ * vertices of one residual graph, identified by their vertex IDs.
+ */
+public interface VertexSelectionStrategy {
+
+    /**
+     * Return whether there are no active vertices.
+     * @returns  true if empty
+     */
+    boolean isEmpty();
+
+    /**
+     * Return whether a vertex is currently stored.
+     * @param v  a vertex
+     * @returns  true if v is active
+     */
+    boolean isActive(int v);
+
+    /**
+     * Add a vertex that just became active.  v must not be active already.
+     * @param v  a vertex
+     * @param height  the height of v
+     */
+    void add(int v, int height);
+
+    /**
+     * Remove and return the next vertex to discharge.
+     * @returns  the vertex, or -1 if there are no active vertices
+     */
+    int poll();
+
+    /**
+     * Tell the strategy that the height of v changed, either because v
+     * was relabeled while being discharged or because a gap lifted it.
+     * @param v  a vertex
+     * @param height  the new height of v
+     */
+    void heightChanged(int v, int height);
+
+    /**
+     * Remove all vertices.  Used when all labels are recomputed.
+     */
+    void clear();
+}
@@ -0,0 +1,163 @@
+/**
+ * Wave (topological) selection of active vertices, as in the
+ * relabel-to-front algorithm.
+ *
+ * Vertices are kept in a list ordered like a topological order of the
+ * admissible network: admissible arcs go one level down, so a vertex that
+ * becomes active through a push is inserted right behind the vertex that
+ * pushed to it.  poll scans forward from the last discharged vertex; a
+ * vertex that was relabeled while being discharged is moved to the front
+ * of the list first.  When the scan reaches the end of the list a new wave
+ * starts at the front.
+ */
+public class WaveSelection implements VertexSelectionStrategy {
+
+    private int[] next;        // next vertex in the list, -1 at the end
+    private int[] prev;        // previous vertex in the list, -1 at the start
+    private boolean[] inList;
+    private boolean[] active;
+    private int first;
+    private int last;
+    private int cursor;        // vertex polled last, -1 before the first poll
+    private boolean cursorRelabeled;
+    private int size;
+
+    /**
+     * Create an empty list for vertices 0 .. n-1.
+     * @param n  the number of vertices
+     */
+    public WaveSelection(int n) {
+        this.next = new int[n];
+        this.prev = new int[n];
+        this.inList = new boolean[n];
+        this.active = new boolean[n];
+        this.first = -1;
+        this.last = -1;
+        this.cursor = -1;
+        this.cursorRelabeled = false;
+        this.size = 0;
+    }
+
+    /**
+     * Return whether there are no active vertices.
+     * @returns  true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return whether a vertex is currently active.
+     * @param v  a vertex
+     * @returns  true if v is active
+     */
+    public boolean isActive(int v) {
+        return active[v];
+    }
+
+    /**
+     * Mark a vertex active.  A vertex not in the list yet is inserted
+     * behind the vertex polled last.  v must not be active already.
+     * @param v  a vertex
+     * @param height  the height of v, ignored
+     */
+    public void add(int v, int height) {
+        if (!inList[v]) {
+            insertAfter(cursor == -1 ? last : cursor, v);
+        }
+        active[v] = true;
+        size++;
+    }
+
+    /**
+     * Remove and return the next active vertex of the current wave.
+     * @returns  the vertex, or -1 if there are no active vertices
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+
+        // A relabeled vertex goes to the front, the wave goes on behind it
+        if (cursorRelabeled && cursor != first) {
+            unlink(cursor);
+            insertAfter(-1, cursor);
+        }
+        cursorRelabeled = false;
+
+        int v = (cursor == -1) ? first : next[cursor];
+        while (true) {
+            if (v == -1) {
+                v = first;
+            }
+            if (active[v]) {
+                break;
+            }
+            v = next[v];
+        }
+
+        active[v] = false;
+        size--;
+        cursor = v;
+        return v;
+    }
+
+    /**
+     * Note a relabel of the vertex polled last, which moves it to the
+     * front of the list at the next poll.
+     * @param v  a vertex
+     * @param height  the new height of v
+     */
+    public void heightChanged(int v, int height) {
+        if (v == cursor) {
+            cursorRelabeled = true;
+        }
+    }
+
+    /**
+     * Remove all vertices and empty the list.
+     */
+    public void clear() {
+        for (int v = first; v != -1; v = next[v]) {
+            inList[v] = false;
+            active[v] = false;
+        }
+        first = -1;
+        last = -1;
+        cursor = -1;
+        cursorRelabeled = false;
+        size = 0;
+    }
+
+    // Insert v after u, or at the front if u is -1
+    private void insertAfter(int u, int v) {
+        prev[v] = u;
+        if (u == -1) {
+            next[v] = first;
+            first = v;
+        } else {
+            next[v] = next[u];
+            next[u] = v;
+        }
+        if (next[v] == -1) {
+            last = v;
+        } else {
+            prev[next[v]] = v;
+        }
+        inList[v] = true;
+    }
+
+    private void unlink(int v) {
+        if (prev[v] == -1) {
+            first = next[v];
+        } else {
+            next[prev[v]] = next[v];
+        }
+        if (next[v] == -1) {
+            last = prev[v];
+        } else {
+            prev[next[v]] = prev[v];
+        }
+        inList[v] = false;
+    }
+}
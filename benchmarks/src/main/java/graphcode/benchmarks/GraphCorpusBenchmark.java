@@ -0,0 +1,187 @@
+package graphcode.benchmarks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Load time and solve time on every graph in the Graph/ directory,
+ * measured separately; solving is measured for each MaxFlowSolver.
+ *
+ * The graph directory defaults to Graph relative to the working directory
+ * and can be changed with -Dgraph.dir=...; a single graph is selected with
+ * -p file=NAME.  Running this class (or benchmarks.jar) enables the GC
+ * profiler, which also reports the allocation rate per operation.
+ *
+ * The solver classes live in the unnamed package, which cannot be imported
+ * from a named one, so they are bound through method handles.  The handles
+ * are static final and therefore constants to the JIT compiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class GraphCorpusBenchmark {
+
+    private static final MethodHandle LOAD;         // GraphInput.LoadResidualGraph
+    private static final MethodHandle SOLVE;        // MaxFlowSolver.solve
+    private static final MethodHandle SOURCE;       // ResidualGraph.getSource
+    private static final MethodHandle SINK;         // ResidualGraph.getSink
+    private static final MethodHandle CONVERT;      // GraphSnapshot.convert
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> graph = Class.forName("ResidualGraph");
+            Class<?> solver = Class.forName("MaxFlowSolver");
+            Class<?> result = Class.forName("MaxFlowResult");
+
+            LOAD = lookup.findStatic(Class.forName("GraphInput"), "LoadResidualGraph",
+                    MethodType.methodType(graph, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            SOLVE = lookup.findVirtual(solver, "solve",
+                    MethodType.methodType(result, graph, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class,
+                            int.class, int.class));
+            SOURCE = lookup.findVirtual(graph, "getSource", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            SINK = lookup.findVirtual(graph, "getSink", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            CONVERT = lookup.findStatic(Class.forName("GraphSnapshot"), "convert",
+                    MethodType.methodType(boolean.class, String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({
+        "SimpleG.txt",
+        "Bipartite1.txt",
+        "Bipartite2.txt",
+        "20v-3out-4min-355max.txt",
+        "100v-5out-25min-200max.txt",
+        "smallMesh.txt",
+        "mediumMesh.txt",
+        "n10-m10-cmin5-cmax10-f30.txt",
+        "n100-m100-cmin10-cmax20-f949.txt"
+    })
+    public String file;
+
+    private String path;
+    private String snapshotPath;
+    private Object graph;
+    private int source;
+    private int sink;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        // The loader reports every file it opens; keep that out of the results
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        path = new File(System.getProperty("graph.dir", "Graph"), file).getPath();
+        graph = (Object) LOAD.invokeExact(path);
+        if (graph == null) {
+            throw new IllegalStateException("cannot load " + path);
+        }
+        source = (int) SOURCE.invokeExact(graph);
+        sink = (int) SINK.invokeExact(graph);
+
+        File snapshot = File.createTempFile(file, ".graph");
+        snapshot.deleteOnExit();
+        snapshotPath = snapshot.getPath();
+        if (!(boolean) CONVERT.invokeExact(path, snapshotPath)) {
+            throw new IllegalStateException("cannot convert " + path);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+        new File(snapshotPath).delete();
+    }
+
+    /**
+     * Parse the file into a residual graph.
+     */
+    @Benchmark
+    public Object load() throws Throwable {
+        return (Object) LOAD.invokeExact(path);
+    }
+
+    /**
+     * Load the binary snapshot of the file.
+     */
+    @Benchmark
+    public Object loadSnapshot() throws Throwable {
+        return (Object) LOAD.invokeExact(snapshotPath);
+    }
+
+    /**
+     * Solve the graph loaded during setup.  Every run starts from the zero
+     * flow, so the same graph can be solved repeatedly.
+     */
+    @Benchmark
+    public Object solve(Solver solver) throws Throwable {
+        return (Object) SOLVE.invokeExact(solver.instance, graph, source, sink);
+    }
+
+    /**
+     * The maximum flow algorithm to solve with.  Only solve uses this
+     * state, so the load benchmarks do not run once per solver.
+     */
+    @State(Scope.Benchmark)
+    public static class Solver {
+
+        @Param({"PreflowPushSolver", "ParallelPushRelabelSolver",
+                "SynchronousPushRelabelSolver", "RegionPushRelabelSolver",
+                "DinicSolver", "EdmondsKarpSolver"})
+        public String solver;
+
+        Object instance;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            instance = Class.forName(solver).getConstructor().newInstance();
+        }
+    }
+
+    /**
+     * Run the benchmarks with the GC profiler.  Accepts the usual JMH
+     * command line options.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(GraphCorpusBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}